@@ -0,0 +1,299 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.lmax.disruptor.util.Util.getMinimumSequence;
+
+/**
+ * Adaptive strategy for {@link EventProcessor}s waiting on a barrier that tunes itself to the observed traffic.
+ *
+ * For each {@link SequenceBarrier} it keeps an exponentially weighted mean of how long waits last.  Treating arrivals
+ * as random with that mean gap g, spinning for s catches a fraction 1 - e^(-s/g) of arrivals at spin latency and
+ * burns the same fraction of the idle time, so the spin budget is set to g * ln(1 / (1 - cpuBudget)).  Once the spin
+ * budget is spent the waiter parks in steps of g / 8, bounding the extra wake-up latency to a small part of the gap.
+ * Under heavy load it behaves like a {@link BusySpinWaitStrategy}, when traffic is a trickle it sleeps.
+ *
+ * The estimates are published for monitoring.  They are updated by the waiting thread, so a barrier shared by a
+ * {@link WorkerPool} sees benign races between its workers' updates.  Barriers are held weakly, so the estimates of
+ * a barrier that is no longer used, such as one of a cancelled subscription, are released with it.
+ * 根据每个屏障观测到的到达间隔，自动调整自旋时长和park时长，在给定CPU预算下尽量降低唤醒延迟。
+ */
+public final class AdaptiveWaitStrategy implements WaitStrategy
+{
+    // 每自旋这么多次才读一次时钟
+    private static final int SPIN_TRIES = 100;
+    // 均值的平滑系数为1/8
+    private static final int EWMA_SHIFT = 3;
+    private static final int PARK_SHIFT = 3;
+
+    private final double spinFactor;
+    private final long maxSpinNanos;
+    private final long minParkNanos;
+    private final long maxParkNanos;
+    // 弱引用屏障，屏障不再使用时其统计随之释放；只在线程切换屏障时加锁访问
+    private final Map<SequenceBarrier, BarrierState> barrierStates = new WeakHashMap<SequenceBarrier, BarrierState>();
+    private final ThreadLocal<Waiter> waiters = new ThreadLocal<Waiter>();
+
+    /**
+     * Construct an adaptive strategy with a maximum spin of 1ms and park steps between 1us and 1ms.
+     *
+     * @param cpuBudget fraction of the idle time, between 0 and 1 exclusive, that a waiter may spend spinning.
+     */
+    public AdaptiveWaitStrategy(final double cpuBudget)
+    {
+        this(cpuBudget, 1000L, 1L, 1000L, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Construct an adaptive strategy.
+     *
+     * @param cpuBudget fraction of the idle time, between 0 and 1 exclusive, that a waiter may spend spinning.
+     * @param maxSpin upper bound on the spin budget of a single wait.
+     * @param minPark lower bound on a single park.
+     * @param maxPark upper bound on a single park.
+     * @param units of the time values.
+     */
+    public AdaptiveWaitStrategy(final double cpuBudget,
+                                final long maxSpin,
+                                final long minPark,
+                                final long maxPark,
+                                final TimeUnit units)
+    {
+        if (!(cpuBudget > 0.0d && cpuBudget < 1.0d))
+        {
+            throw new IllegalArgumentException("cpuBudget must be between 0 and 1 exclusive");
+        }
+        if (maxSpin < 0L || minPark <= 0L || maxPark < minPark)
+        {
+            throw new IllegalArgumentException("Times must satisfy 0 <= maxSpin and 0 < minPark <= maxPark");
+        }
+
+        this.spinFactor = Math.log(1.0d / (1.0d - cpuBudget));
+        this.maxSpinNanos = units.toNanos(maxSpin);
+        this.minParkNanos = units.toNanos(minPark);
+        this.maxParkNanos = units.toNanos(maxPark);
+    }
+
+    @Override
+    public long waitFor(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier)
+        throws AlertException, InterruptedException
+    {
+        try
+        {
+            return waitFor(sequence, cursor, dependents, barrier, false, 0L);
+        }
+        catch (final TimeoutException ex)
+        {
+            throw new IllegalStateException("Untimed wait reported a timeout", ex);
+        }
+    }
+
+    @Override
+    public long waitFor(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                        final long timeout, final TimeUnit sourceUnit)
+        throws AlertException, InterruptedException
+    {
+        try
+        {
+            return waitUntil(sequence, cursor, dependents, barrier, System.nanoTime() + sourceUnit.toNanos(timeout));
+        }
+        catch (final TimeoutException ex)
+        {
+            return getAvailableSequence(cursor, dependents);
+        }
+    }
+
+    @Override
+    public long waitUntil(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                          final long deadlineNanos)
+        throws AlertException, InterruptedException, TimeoutException
+    {
+        return waitFor(sequence, cursor, dependents, barrier, true, deadlineNanos);
+    }
+
+    @Override
+    public void signalAllWhenBlocking()
+    {
+    }
+
+    /**
+     * Get the current estimate of the mean wait for a barrier.
+     *
+     * @param barrier using this strategy.
+     * @return mean wait in nanoseconds, or -1 if the barrier has not had to wait yet.
+     */
+    public long getMeanGapNanos(final SequenceBarrier barrier)
+    {
+        final BarrierState state = findBarrierState(barrier);
+        return null == state ? -1L : state.meanGapNanos;
+    }
+
+    /**
+     * Get the current spin budget for a barrier.
+     *
+     * @param barrier using this strategy.
+     * @return nanoseconds a wait spins before parking.
+     */
+    public long getSpinNanos(final SequenceBarrier barrier)
+    {
+        final BarrierState state = findBarrierState(barrier);
+        return null == state ? maxSpinNanos : state.spinNanos;
+    }
+
+    /**
+     * Get the current park step for a barrier.
+     *
+     * @param barrier using this strategy.
+     * @return nanoseconds of each park once the spin budget is spent.
+     */
+    public long getParkNanos(final SequenceBarrier barrier)
+    {
+        final BarrierState state = findBarrierState(barrier);
+        return null == state ? minParkNanos : state.parkNanos;
+    }
+
+    private long waitFor(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                         final boolean timed, final long deadlineNanos)
+        throws AlertException, TimeoutException
+    {
+        long availableSequence;
+        if ((availableSequence = getAvailableSequence(cursor, dependents)) >= sequence)
+        {
+            return availableSequence;
+        }
+
+        final BarrierState state = getBarrierState(barrier);
+        final long spinNanos = state.spinNanos;
+        final long parkNanos = state.parkNanos;
+        final long startTime = System.nanoTime();
+        boolean parking = 0L == spinNanos;
+        int counter = SPIN_TRIES;
+
+        while ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
+        {
+            barrier.checkAlert();
+
+            final long now;
+            if (parking)
+            {
+                LockSupport.parkNanos(parkNanos);
+                now = System.nanoTime();
+            }
+            else if (0 == --counter)
+            {
+                counter = SPIN_TRIES;
+                now = System.nanoTime();
+                parking = now - startTime > spinNanos;
+            }
+            else
+            {
+                continue;
+            }
+
+            if (timed && now - deadlineNanos >= 0L)
+            {
+                // 超时也是一个样本，说明间隔至少有这么长
+                update(state, now - startTime);
+                throw TimeoutException.INSTANCE;
+            }
+        }
+
+        update(state, System.nanoTime() - startTime);
+
+        return availableSequence;
+    }
+
+    private BarrierState getBarrierState(final SequenceBarrier barrier)
+    {
+        Waiter waiter = waiters.get();
+        if (null == waiter || waiter.barrier != barrier)
+        {
+            BarrierState state;
+            synchronized (barrierStates)
+            {
+                state = barrierStates.get(barrier);
+                if (null == state)
+                {
+                    state = new BarrierState(maxSpinNanos, minParkNanos);
+                    barrierStates.put(barrier, state);
+                }
+            }
+            waiter = new Waiter(barrier, state);
+            waiters.set(waiter);
+        }
+
+        return waiter.state;
+    }
+
+    private BarrierState findBarrierState(final SequenceBarrier barrier)
+    {
+        synchronized (barrierStates)
+        {
+            return barrierStates.get(barrier);
+        }
+    }
+
+    private void update(final BarrierState state, final long gapNanos)
+    {
+        final long previousMean = state.meanGapNanos;
+        final long mean = previousMean < 0L ? gapNanos : previousMean + ((gapNanos - previousMean) >> EWMA_SHIFT);
+
+        state.meanGapNanos = mean;
+        state.spinNanos = Math.min((long)(mean * spinFactor), maxSpinNanos);
+        state.parkNanos = Math.max(minParkNanos, Math.min(mean >> PARK_SHIFT, maxParkNanos));
+    }
+
+    private static long getAvailableSequence(final Sequence cursor, final Sequence[] dependents)
+    {
+        return 0 == dependents.length ? cursor.get() : getMinimumSequence(dependents);
+    }
+
+    /**
+     * The barrier a thread last waited on, so repeated waits find their state without locking.
+     */
+    private static final class Waiter
+    {
+        private final SequenceBarrier barrier;
+        private final BarrierState state;
+
+        private Waiter(final SequenceBarrier barrier, final BarrierState state)
+        {
+            this.barrier = barrier;
+            this.state = state;
+        }
+    }
+
+    /**
+     * Must not refer to its barrier, which would keep the weakly held key alive.
+     */
+    private static final class BarrierState
+    {
+        private volatile long meanGapNanos = -1L;
+        private volatile long spinNanos;
+        private volatile long parkNanos;
+
+        private BarrierState(final long spinNanos, final long parkNanos)
+        {
+            this.spinNanos = spinNanos;
+            this.parkNanos = parkNanos;
+        }
+    }
+}
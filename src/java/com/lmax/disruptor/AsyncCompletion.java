@@ -0,0 +1,39 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Completion handle passed to an {@link AsyncEventHandler} for signalling that the processing of a sequence has finished.
+ *
+ * Implementations are thread safe so completion can be signalled from any thread.
+ */
+public interface AsyncCompletion
+{
+    /**
+     * Signal that the event at the given sequence has been processed successfully.
+     *
+     * @param sequence of the event that has been processed.
+     */
+    void complete(long sequence);
+
+    /**
+     * Signal that processing of the event at the given sequence has failed.
+     *
+     * @param sequence of the event that failed.
+     * @param ex the cause of the failure.
+     */
+    void completeExceptionally(long sequence, Throwable ex);
+}
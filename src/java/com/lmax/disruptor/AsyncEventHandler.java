@@ -0,0 +1,39 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Callback interface to be implemented for processing events asynchronously as they become available in the {@link RingBuffer}.
+ *
+ * The handler starts the work for an event and returns straight away.  When the work is finished, possibly on another
+ * thread, exactly one of {@link AsyncCompletion#complete(long)} or
+ * {@link AsyncCompletion#completeExceptionally(long, Throwable)} must be called for the sequence.
+ *
+ * @see AsyncEventProcessor
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ */
+public interface AsyncEventHandler<T>
+{
+    /**
+     * Called when a publisher has published an event to the {@link RingBuffer}
+     *
+     * @param event published to the {@link RingBuffer}.  It must not be used after the completion has been signalled.
+     * @param sequence of the event being processed
+     * @param completion handle on which to signal that processing of the sequence has finished.
+     * @throws Exception if the work could not be started, this completes the sequence exceptionally.
+     */
+    void onEvent(T event, long sequence, AsyncCompletion completion) throws Exception;
+}
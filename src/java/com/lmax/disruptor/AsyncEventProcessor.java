@@ -0,0 +1,337 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link EventProcessor} delegating events to an {@link AsyncEventHandler} which may complete them out of order.
+ *
+ * Up to <code>maxInFlight</code> events are dispatched without waiting for their completion.  Completions are recorded
+ * in a ring indexed bitset and the {@link Sequence} is only advanced over the contiguous completed prefix, so stages
+ * gating on this processor still never see an event before it, and all events ahead of it, have completed.
+ *
+ * If the {@link AsyncEventHandler} also implements {@link LifecycleAware} it will be notified just after the thread
+ * is started and just before the thread is shutdown.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ */
+public final class AsyncEventProcessor<T>
+    implements EventProcessor, AsyncCompletion
+{
+    private static final long WINDOW_FULL_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean runLoopActive = false;
+    private final AtomicBoolean advancing = new AtomicBoolean(false);
+    private ExceptionHandler exceptionHandler = new FatalExceptionHandler();
+    private final RingBuffer<T> ringBuffer;
+    private final SequenceBarrier sequenceBarrier;
+    private final AsyncEventHandler<T> eventHandler;
+    private final Sequence sequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+    private final int maxInFlight;
+    private final int indexMask;
+    private final AtomicLongArray completed;
+    private volatile Thread waitingThread;
+
+    /**
+     * Construct a {@link EventProcessor} that will advance its sequence as the events dispatched to the
+     * {@link AsyncEventHandler} are completed.
+     *
+     * @param ringBuffer to which events are published.
+     * @param sequenceBarrier on which it is waiting.
+     * @param eventHandler is the delegate to which events are dispatched.
+     * @param maxInFlight number of uncompleted events allowed, must be a power of 2 no larger than the buffer size.
+     */
+    public AsyncEventProcessor(final RingBuffer<T> ringBuffer,
+                               final SequenceBarrier sequenceBarrier,
+                               final AsyncEventHandler<T> eventHandler,
+                               final int maxInFlight)
+    {
+        if (Integer.bitCount(maxInFlight) != 1)
+        {
+            throw new IllegalArgumentException("maxInFlight must be a power of 2");
+        }
+
+        if (maxInFlight > ringBuffer.getBufferSize())
+        {
+            throw new IllegalArgumentException("maxInFlight must not be larger than the bufferSize");
+        }
+
+        this.ringBuffer = ringBuffer;
+        this.sequenceBarrier = sequenceBarrier;
+        this.eventHandler = eventHandler;
+        this.maxInFlight = maxInFlight;
+        this.indexMask = maxInFlight - 1;
+        this.completed = new AtomicLongArray(Math.max(1, maxInFlight >>> 6));
+    }
+
+    @Override
+    public Sequence getSequence()
+    {
+        return sequence;
+    }
+
+    @Override
+    public void halt()
+    {
+        running.set(false);
+        sequenceBarrier.alert();
+    }
+
+    @Override
+    public boolean isRunning()
+    {
+        return runLoopActive;
+    }
+
+    /**
+     * Set a new {@link ExceptionHandler} for handling exceptions propagated out of the {@link AsyncEventProcessor}.
+     *
+     * Exceptions signalled via {@link #completeExceptionally(long, Throwable)} are handled on the completing thread.
+     *
+     * @param exceptionHandler to replace the existing exceptionHandler.
+     */
+    public void setExceptionHandler(final ExceptionHandler exceptionHandler)
+    {
+        if (null == exceptionHandler)
+        {
+            throw new NullPointerException();
+        }
+
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    // events dispatched to the handler that have not yet been released by advancing the sequence
+    private long inFlight(final long nextSequence)
+    {
+        return nextSequence - sequence.get() - 1L;
+    }
+
+    /**
+     * It is ok to have another thread rerun this method after a halt().
+     */
+    @Override
+    public void run()
+    {
+        if (!running.compareAndSet(false, true))
+        {
+            throw new IllegalStateException("Thread is already running");
+        }
+        runLoopActive = true;
+        try
+        {
+            sequenceBarrier.clearAlert();
+            waitingThread = Thread.currentThread();
+
+            notifyStart();
+
+            long nextSequence = sequence.get() + 1L;
+            while (true)
+            {
+                try
+                {
+                    if (inFlight(nextSequence) >= maxInFlight)
+                    {
+                        awaitCompletions(nextSequence);
+                        continue;
+                    }
+
+                    final long availableSequence = sequenceBarrier.waitFor(nextSequence);
+                    final long endOfBatch = Math.min(availableSequence, sequence.get() + maxInFlight);
+
+                    while (nextSequence <= endOfBatch)
+                    {
+                        dispatch(nextSequence);
+                        nextSequence++;
+                    }
+                }
+                catch (final AlertException ex)
+                {
+                    if (!running.get())
+                    {
+                        break;
+                    }
+                }
+                catch (final Throwable ex)
+                {
+                    exceptionHandler.handleEventException(ex, nextSequence, null);
+                }
+            }
+
+            waitingThread = null;
+
+            notifyShutdown();
+
+            running.set(false);
+        }
+        finally
+        {
+            runLoopActive = false;
+        }
+    }
+
+    @Override
+    public void complete(final long sequence)
+    {
+        markCompleted(sequence);
+        advance();
+    }
+
+    @Override
+    public void completeExceptionally(final long sequence, final Throwable ex)
+    {
+        try
+        {
+            exceptionHandler.handleEventException(ex, sequence, ringBuffer.get(sequence));
+        }
+        finally
+        {
+            complete(sequence);
+        }
+    }
+
+    private void dispatch(final long sequence)
+    {
+        try
+        {
+            eventHandler.onEvent(ringBuffer.get(sequence), sequence, this);
+        }
+        catch (final Throwable ex)
+        {
+            completeExceptionally(sequence, ex);
+        }
+    }
+
+    private void awaitCompletions(final long nextSequence) throws AlertException
+    {
+        sequenceBarrier.checkAlert();
+        if (inFlight(nextSequence) >= maxInFlight)
+        {
+            LockSupport.parkNanos(this, WINDOW_FULL_PARK_NANOS);
+        }
+    }
+
+    private void markCompleted(final long sequence)
+    {
+        final int index = (int)sequence & indexMask;
+        final int word = index >>> 6;
+        final long mask = 1L << index;
+
+        long current;
+        do
+        {
+            current = completed.get(word);
+        }
+        while (!completed.compareAndSet(word, current, current | mask));
+    }
+
+    private boolean clearIfCompleted(final long sequence)
+    {
+        final int index = (int)sequence & indexMask;
+        final int word = index >>> 6;
+        final long mask = 1L << index;
+
+        long current;
+        do
+        {
+            current = completed.get(word);
+            if (0L == (current & mask))
+            {
+                return false;
+            }
+        }
+        while (!completed.compareAndSet(word, current, current & ~mask));
+
+        return true;
+    }
+
+    /**
+     * Move the sequence over the contiguous completed prefix.  Only the thread holding the advancing flag clears bits,
+     * so a bit can never be mistaken for the completion of the event a full window ahead in the same slot.
+     */
+    private void advance()
+    {
+        boolean advanced = false;
+        while (advancing.compareAndSet(false, true))
+        {
+            try
+            {
+                long next = sequence.get() + 1L;
+                while (clearIfCompleted(next))
+                {
+                    sequence.set(next);
+                    advanced = true;
+                    next++;
+                }
+            }
+            finally
+            {
+                advancing.set(false);
+            }
+
+            if (!isCompleted(sequence.get() + 1L))
+            {
+                break;
+            }
+        }
+
+        if (advanced)
+        {
+            LockSupport.unpark(waitingThread);
+            ringBuffer.signalAllWhenBlocking();
+        }
+    }
+
+    private boolean isCompleted(final long sequence)
+    {
+        final int index = (int)sequence & indexMask;
+        return 0L != (completed.get(index >>> 6) & (1L << index));
+    }
+
+    private void notifyStart()
+    {
+        if (eventHandler instanceof LifecycleAware)
+        {
+            try
+            {
+                ((LifecycleAware)eventHandler).onStart();
+            }
+            catch (final Throwable ex)
+            {
+                exceptionHandler.handleOnStartException(ex);
+            }
+        }
+    }
+
+    private void notifyShutdown()
+    {
+        if (eventHandler instanceof LifecycleAware)
+        {
+            try
+            {
+                ((LifecycleAware)eventHandler).onShutdown();
+            }
+            catch (final Throwable ex)
+            {
+                exceptionHandler.handleOnShutdownException(ex);
+            }
+        }
+    }
+}
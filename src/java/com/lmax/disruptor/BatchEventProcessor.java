@@ -15,7 +15,9 @@
  */
 package com.lmax.disruptor;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Convenience class for handling the batching semantics of consuming entries from a {@link RingBuffer}
@@ -24,17 +26,32 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * If the {@link EventHandler} also implements {@link LifecycleAware} it will be notified just after the thread
  * is started and just before the thread is shutdown.
  *
+ * If the {@link EventHandler} also implements {@link TimeoutHandler} and a timeout has been set it will be notified
+ * when no events arrive within the timeout.
+ *
+ * The {@link EventHandler} can be replaced while the processor runs with {@link #swapEventHandler(EventHandler)}.
+ *
+ * If a {@link BatchRewindStrategy} has been set, an {@link EventHandler} throwing a {@link RewindableException} has
+ * the whole batch re-delivered from its first event without the {@link Sequence} being advanced.
+ *
  * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
  */
 public final class BatchEventProcessor<T>
     implements EventProcessor
 {
     private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean runLoopActive = false;
     private ExceptionHandler exceptionHandler = new FatalExceptionHandler();
     private final RingBuffer<T> ringBuffer;
     private final SequenceBarrier sequenceBarrier;
-    private final EventHandler<T> eventHandler;
+    private EventHandler<T> eventHandler;
+    private final AtomicReference<EventHandler<T>> replacementEventHandler = new AtomicReference<EventHandler<T>>();
     private final Sequence sequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+    private TimeoutHandler timeoutHandler;
+    private long timeoutNanos = 0L;
+    private BatchRewindStrategy rewindStrategy;
+    private int maxRewindAttempts;
+    private int maxBatchSize = Integer.MAX_VALUE;
 
     /**
      * Construct a {@link EventProcessor} that will automatically track the progress by updating its sequence when
@@ -50,12 +67,7 @@ public final class BatchEventProcessor<T>
     {
         this.ringBuffer = ringBuffer;
         this.sequenceBarrier = sequenceBarrier;
-        this.eventHandler = eventHandler;
-
-        if (eventHandler instanceof SequenceReportingEventHandler)
-        {
-            ((SequenceReportingEventHandler<?>)eventHandler).setSequenceCallback(sequence);
-        }
+        setEventHandler(eventHandler);
     }
 
     @Override
@@ -71,6 +83,94 @@ public final class BatchEventProcessor<T>
         sequenceBarrier.alert();
     }
 
+    @Override
+    public boolean isRunning()
+    {
+        return runLoopActive;
+    }
+
+    /**
+     * Replace the {@link EventHandler} without stopping the processor.  The replacement takes over at the next batch
+     * boundary, continuing from the {@link Sequence} reached by the current handler, while the publishers and the other
+     * processors keep running.  If the handlers are {@link LifecycleAware} the current one is shut down and the
+     * replacement started on the processor thread just before the swap.
+     *
+     * An idle processor swaps when the next event arrives, so the replacement still sees every event after the swap.
+     *
+     * @param eventHandler to dispatch events to from the next batch on.
+     */
+    public void swapEventHandler(final EventHandler<T> eventHandler)
+    {
+        if (null == eventHandler)
+        {
+            throw new NullPointerException();
+        }
+
+        replacementEventHandler.set(eventHandler);
+    }
+
+    /**
+     * Check if a replacement handler set with {@link #swapEventHandler(EventHandler)} has yet to take over.
+     *
+     * @return true if the swap is still pending.
+     */
+    public boolean isSwapPending()
+    {
+        return null != replacementEventHandler.get();
+    }
+
+    EventHandler<T> getEventHandler()
+    {
+        return eventHandler;
+    }
+
+    /**
+     * Apply a pending swap at a batch boundary.  Only called by the thread running this processor, or the
+     * {@link FusedEventProcessor} it is a stage of.
+     *
+     * @param started true if the current handler has been started and so must be shut down first.
+     */
+    void applyEventHandlerSwap(final boolean started)
+    {
+        final EventHandler<T> replacement = replacementEventHandler.getAndSet(null);
+        if (null != replacement)
+        {
+            if (started)
+            {
+                notifyShutdown();
+            }
+            setEventHandler(replacement);
+            if (started)
+            {
+                notifyStart();
+            }
+        }
+    }
+
+    int getMaxBatchSize()
+    {
+        return maxBatchSize;
+    }
+
+    ExceptionHandler getExceptionHandler()
+    {
+        return exceptionHandler;
+    }
+
+    SequenceBarrier getSequenceBarrier()
+    {
+        return sequenceBarrier;
+    }
+
+    /**
+     * A processor can be fused by {@link FusedEventProcessor} when it does not use the features of its own run loop:
+     * timeouts and batch rewinds.
+     */
+    boolean isFusible()
+    {
+        return 0L == timeoutNanos && null == rewindStrategy && !runLoopActive;
+    }
+
     /**
      * Set a new {@link ExceptionHandler} for handling exceptions propagated out of the {@link BatchEventProcessor}
      *
@@ -86,6 +186,65 @@ public final class BatchEventProcessor<T>
         this.exceptionHandler = exceptionHandler;
     }
 
+    /**
+     * Set the interval after which a {@link TimeoutHandler} is notified when no events have arrived.  The wait uses the
+     * deadline based {@link SequenceBarrier#waitUntil(long, long)} so no extra thread or timer event is required.
+     * Must be called before the processor is started.
+     *
+     * @param timeout with no events after which {@link TimeoutHandler#onTimeout(long)} is called, 0 to disable.
+     * @param units of the timeout value.
+     */
+    public void setTimeout(final long timeout, final TimeUnit units)
+    {
+        if (timeout < 0L)
+        {
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+
+        this.timeoutNanos = units.toNanos(timeout);
+    }
+
+    /**
+     * Limit the number of events passed to the {@link EventHandler} before its sequence is advanced and the end of batch
+     * flag is set, so downstream processors and the ring buffer see progress sooner under a large backlog.
+     * Must be called before the processor is started.
+     *
+     * @param maxBatchSize the largest number of events in a batch.
+     */
+    public void setMaxBatchSize(final int maxBatchSize)
+    {
+        if (maxBatchSize < 1)
+        {
+            throw new IllegalArgumentException("maxBatchSize must be greater than 0");
+        }
+
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Enable re-delivery of a batch when the {@link EventHandler} throws a {@link RewindableException}.
+     * Must be called before the processor is started.
+     *
+     * @param rewindStrategy applied before each rewind of a batch.
+     * @param maxRewindAttempts number of rewinds of a batch after which the exception is passed to the
+     * {@link ExceptionHandler} and the event skipped.
+     */
+    public void setRewindStrategy(final BatchRewindStrategy rewindStrategy, final int maxRewindAttempts)
+    {
+        if (null == rewindStrategy)
+        {
+            throw new NullPointerException();
+        }
+
+        if (maxRewindAttempts < 1)
+        {
+            throw new IllegalArgumentException("maxRewindAttempts must be greater than 0");
+        }
+
+        this.rewindStrategy = rewindStrategy;
+        this.maxRewindAttempts = maxRewindAttempts;
+    }
+
     /**
      * It is ok to have another thread rerun this method after a halt().
      */
@@ -96,50 +255,121 @@ public final class BatchEventProcessor<T>
         {
             throw new IllegalStateException("Thread is already running");
         }
+        runLoopActive = true;
+        try
+        {
         
-        sequenceBarrier.clearAlert();
+            sequenceBarrier.clearAlert();
 
-        notifyStart();
+            // 启动前提交的替换直接生效，旧handler从未启动
+            applyEventHandlerSwap(false);
+            notifyStart();
 
-        T event = null;
-        // 获取下一个消费位置
-        long nextSequence = sequence.get() + 1L;
-        while (true)
-        {
-            try
+            T event = null;
+            // 获取下一个消费位置
+            long nextSequence = sequence.get() + 1L;
+            int rewindAttempts = 0;
+            while (true)
             {
-            	// 拿到最新的发布位
-                final long availableSequence = sequenceBarrier.waitFor(nextSequence);
-                // 循环批量回调availableSequence-nextSequence之间的所有eventHandler
-                while (nextSequence <= availableSequence)
+                final long startOfBatch = nextSequence;
+                try
                 {
-                    event = ringBuffer.get(nextSequence);
-                    eventHandler.onEvent(event, nextSequence, nextSequence == availableSequence);
-                    nextSequence++;
+                	// 拿到最新的发布位
+                    final long availableSequence = Math.min(waitFor(nextSequence), nextSequence + maxBatchSize - 1L);
+                    applyEventHandlerSwap(true);
+
+                    // 循环批量回调availableSequence-nextSequence之间的所有eventHandler
+                    while (nextSequence <= availableSequence)
+                    {
+                        event = ringBuffer.get(nextSequence);
+                        eventHandler.onEvent(event, nextSequence, nextSequence == availableSequence);
+                        nextSequence++;
+                    }
+
+                    // sequence设置为当前已经消费完的位置，并唤醒阻塞等待本消费者的下游
+                    sequence.set(nextSequence - 1L);
+                    ringBuffer.signalAllWhenBlocking();
+                    rewindAttempts = 0;
+                }
+                catch (final AlertException ex)
+                {
+                   if (!running.get())
+                   {
+                       break;
+                   }
+                }
+                catch (final TimeoutException ex)
+                {
+                    notifyTimeout(nextSequence - 1L);
                 }
+                catch (final RewindableException ex)
+                {
+                    if (null != rewindStrategy && ++rewindAttempts <= maxRewindAttempts)
+                    {
+                        rewindStrategy.beforeRewind(ex, rewindAttempts);
+                        nextSequence = startOfBatch;
+                        continue;
+                    }
 
-                // sequence设置为当前已经消费完的位置
-                sequence.set(nextSequence - 1L);
-            }
-            catch (final AlertException ex)
-            {
-               if (!running.get())
-               {
-                   break;
-               }
-            }
-            catch (final Throwable ex)
-            {
-                exceptionHandler.handleEventException(ex, nextSequence, event);
-                // 跳过该异常节点
-                sequence.set(nextSequence);
-                nextSequence++;
+                    rewindAttempts = 0;
+                    exceptionHandler.handleEventException(ex, nextSequence, event);
+                    sequence.set(nextSequence);
+                    ringBuffer.signalAllWhenBlocking();
+                    nextSequence++;
+                }
+                catch (final Throwable ex)
+                {
+                    exceptionHandler.handleEventException(ex, nextSequence, event);
+                    // 跳过该异常节点
+                    sequence.set(nextSequence);
+                    ringBuffer.signalAllWhenBlocking();
+                    nextSequence++;
+                }
             }
+
+            notifyShutdown();
+
+            running.set(false);
+        }
+        finally
+        {
+            runLoopActive = false;
         }
+    }
 
-        notifyShutdown();
+    private void setEventHandler(final EventHandler<T> eventHandler)
+    {
+        this.eventHandler = eventHandler;
 
-        running.set(false);
+        if (eventHandler instanceof SequenceReportingEventHandler)
+        {
+            ((SequenceReportingEventHandler<?>)eventHandler).setSequenceCallback(sequence);
+        }
+
+        timeoutHandler = (eventHandler instanceof TimeoutHandler) ? (TimeoutHandler)eventHandler : null;
+    }
+
+    private long waitFor(final long nextSequence)
+        throws AlertException, InterruptedException, TimeoutException
+    {
+        if (null != timeoutHandler && 0L != timeoutNanos)
+        {
+            return sequenceBarrier.waitUntil(nextSequence, System.nanoTime() + timeoutNanos);
+        }
+
+        return sequenceBarrier.waitFor(nextSequence);
+    }
+
+    private void notifyTimeout(final long lastSequence)
+    {
+        try
+        {
+            timeoutHandler.onTimeout(lastSequence);
+        }
+        catch (final Throwable ex)
+        {
+            exceptionHandler.handleEventException(ex, lastSequence, null);
+        }
     }
 
     private void notifyStart()
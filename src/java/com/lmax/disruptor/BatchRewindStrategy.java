@@ -0,0 +1,30 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Strategy applied by a {@link BatchEventProcessor} between a {@link RewindableException} and the re-delivery of the batch.
+ */
+public interface BatchRewindStrategy
+{
+    /**
+     * Called on the thread of the {@link BatchEventProcessor} before the batch is rewound.
+     *
+     * @param ex thrown by the {@link EventHandler}.
+     * @param attempts number of times the current batch has been rewound, including this one.
+     */
+    void beforeRewind(RewindableException ex, int attempts);
+}
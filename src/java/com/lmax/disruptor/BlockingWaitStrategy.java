@@ -26,11 +26,15 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 /**
  * Blocking strategy that uses a lock and condition variable for {@link EventProcessor}s waiting on a barrier.
  *
- * This strategy can be used when throughput and low-latency are not as important as CPU resource.
+ * This strategy can be used when throughput and low-latency are not as important as CPU resource.  Waits on
+ * dependent {@link EventProcessor}s block as well, relying on them to call {@link Sequencer#signalAllWhenBlocking()}
+ * when they advance.
  * 使用锁和条件变量。CPU资源的占用少，延迟大。
  */
 public final class BlockingWaitStrategy implements WaitStrategy
 {
+    private static final long MAX_AWAIT_NANOS = MILLISECONDS.toNanos(1L);
+
     private final Lock lock = new ReentrantLock();
     private final Condition processorNotifyCondition = lock.newCondition();
     private volatile int numWaiters = 0;
@@ -40,17 +44,17 @@ public final class BlockingWaitStrategy implements WaitStrategy
         throws AlertException, InterruptedException
     {
         long availableSequence;
-        // 现有的发布下标比新请求的小，证明发布要比消费慢，要等待新的发布才能继续进行
-        if ((availableSequence = cursor.get()) < sequence)
+        // 现有的发布下标(有上游时为上游的最小消费序号)比新请求的小，要等待新的发布或上游推进才能继续进行
+        if ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
         {
             lock.lock();
             try
             {
                 ++numWaiters;
-                while ((availableSequence = cursor.get()) < sequence)
+                while ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
                 {
                     barrier.checkAlert();
-                    // block中，等待唤醒
+                    // block中，等待发布者或上游消费者唤醒
                     processorNotifyCondition.await(1, MILLISECONDS);
                 }
             }
@@ -61,16 +65,6 @@ public final class BlockingWaitStrategy implements WaitStrategy
             }
         }
 
-        // 让有上游时
-        if (0 != dependents.length)
-        {
-        	// 当依赖消费者已消费最小序号大于等于当前消费的序号时，证明上游都跑完了，赶紧返回。否则，等待上游消费完。
-            while ((availableSequence = getMinimumSequence(dependents)) < sequence)
-            {
-                barrier.checkAlert();
-            }
-        }
-
         return availableSequence;
     }
 
@@ -79,22 +73,39 @@ public final class BlockingWaitStrategy implements WaitStrategy
     public long waitFor(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
                         final long timeout, final TimeUnit sourceUnit)
         throws AlertException, InterruptedException
+    {
+        try
+        {
+            return waitUntil(sequence, cursor, dependents, barrier, System.nanoTime() + sourceUnit.toNanos(timeout));
+        }
+        catch (final TimeoutException ex)
+        {
+            return getAvailableSequence(cursor, dependents);
+        }
+    }
+
+    @Override
+    public long waitUntil(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                          final long deadlineNanos)
+        throws AlertException, InterruptedException, TimeoutException
     {
         long availableSequence;
-        if ((availableSequence = cursor.get()) < sequence)
+        if ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
         {
             lock.lock();
             try
             {
                 ++numWaiters;
-                while ((availableSequence = cursor.get()) < sequence)
+                while ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
                 {
                     barrier.checkAlert();
 
-                    if (!processorNotifyCondition.await(timeout, sourceUnit))
+                    final long remainingNanos = deadlineNanos - System.nanoTime();
+                    if (remainingNanos <= 0L)
                     {
-                        break;
+                        throw TimeoutException.INSTANCE;
                     }
+                    processorNotifyCondition.awaitNanos(Math.min(remainingNanos, MAX_AWAIT_NANOS));
                 }
             }
             finally
@@ -104,14 +115,6 @@ public final class BlockingWaitStrategy implements WaitStrategy
             }
         }
 
-        if (0 != dependents.length)
-        {
-            while ((availableSequence = getMinimumSequence(dependents)) < sequence)
-            {
-                barrier.checkAlert();
-            }
-        }
-
         return availableSequence;
     }
 
@@ -131,4 +134,9 @@ public final class BlockingWaitStrategy implements WaitStrategy
             }
         }
     }
+
+    private static long getAvailableSequence(final Sequence cursor, final Sequence[] dependents)
+    {
+        return 0 == dependents.length ? cursor.get() : getMinimumSequence(dependents);
+    }
 }
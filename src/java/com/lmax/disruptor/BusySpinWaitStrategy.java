@@ -28,6 +28,8 @@ import static com.lmax.disruptor.util.Util.getMinimumSequence;
  */
 public final class BusySpinWaitStrategy implements WaitStrategy
 {
+    private static final int CLOCK_CHECK_INTERVAL = 100;
+
     @Override
     public long waitFor(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier)
         throws AlertException, InterruptedException
@@ -58,34 +60,36 @@ public final class BusySpinWaitStrategy implements WaitStrategy
                         final long timeout, final TimeUnit sourceUnit)
         throws AlertException, InterruptedException
     {
-        final long timeoutMs = sourceUnit.toMillis(timeout);
-        final long startTime = System.currentTimeMillis();
+        try
+        {
+            return waitUntil(sequence, cursor, dependents, barrier, System.nanoTime() + sourceUnit.toNanos(timeout));
+        }
+        catch (final TimeoutException ex)
+        {
+            return 0 == dependents.length ? cursor.get() : getMinimumSequence(dependents);
+        }
+    }
+
+    @Override
+    public long waitUntil(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                          final long deadlineNanos)
+        throws AlertException, InterruptedException, TimeoutException
+    {
         long availableSequence;
+        int counter = CLOCK_CHECK_INTERVAL;
 
         if (0 == dependents.length)
         {
             while ((availableSequence = cursor.get()) < sequence)
             {
-                barrier.checkAlert();
-
-                final long elapsedTime = System.currentTimeMillis() - startTime;
-                if (elapsedTime > timeoutMs)
-                {
-                    break;
-                }
+                counter = checkDeadline(barrier, counter, deadlineNanos);
             }
         }
         else
         {
             while ((availableSequence = getMinimumSequence(dependents)) < sequence)
             {
-                barrier.checkAlert();
-
-                final long elapsedTime = System.currentTimeMillis() - startTime;
-                if (elapsedTime > timeoutMs)
-                {
-                    break;
-                }
+                counter = checkDeadline(barrier, counter, deadlineNanos);
             }
         }
 
@@ -96,4 +100,22 @@ public final class BusySpinWaitStrategy implements WaitStrategy
     public void signalAllWhenBlocking()
     {
     }
+
+    private static int checkDeadline(final SequenceBarrier barrier, int counter, final long deadlineNanos)
+        throws AlertException, TimeoutException
+    {
+        barrier.checkAlert();
+
+        // 每自旋CLOCK_CHECK_INTERVAL次才读一次时钟
+        if (0 == --counter)
+        {
+            if (System.nanoTime() - deadlineNanos >= 0L)
+            {
+                throw TimeoutException.INSTANCE;
+            }
+            counter = CLOCK_CHECK_INTERVAL;
+        }
+
+        return counter;
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Implementations copy an event that could not be processed, together with its failure details, into an event
+ * claimed from a dead-letter {@link RingBuffer}.
+ *
+ * @see RetryingEventHandler
+ * @param <T> event implementation that failed processing.
+ * @param <D> event implementation stored in the dead-letter {@link RingBuffer}.
+ */
+public interface DeadLetterTranslator<T, D>
+{
+    /**
+     * Translate a failed event into fields set in the given dead-letter event.
+     *
+     * @param deadLetter into which the failed event should be copied.
+     * @param deadLetterSequence that is assigned to the dead-letter event.
+     * @param event which failed processing.  It must be copied as the slot will be reused once processing moves on.
+     * @param sequence of the failed event in its original {@link RingBuffer}.
+     * @param cause of the last failed attempt.
+     * @param attempts made before giving up.
+     */
+    void translateTo(D deadLetter, long deadLetterSequence, T event, long sequence, Throwable cause, int attempts);
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thrown when {@link EventProcessor}s do not drain the published events, or do not exit their run loops after being
+ * halted, within the time allowed for a shutdown.  It reports where each lagging processor got to.
+ */
+@SuppressWarnings("serial")
+public final class DrainTimeoutException extends Exception
+{
+    private final long cursor;
+    private final Map<EventProcessor, Long> undrainedSequences;
+    private final List<EventProcessor> runningProcessors;
+
+    /**
+     * Capture the state of the processors at the time of the timeout.
+     *
+     * @param cursor of the {@link RingBuffer} that was being drained.
+     * @param eventProcessors that were being shut down.
+     */
+    public DrainTimeoutException(final long cursor, final EventProcessor... eventProcessors)
+    {
+        this(cursor, undrainedSequences(cursor, eventProcessors), runningProcessors(eventProcessors));
+    }
+
+    private DrainTimeoutException(final long cursor,
+                                  final Map<EventProcessor, Long> undrainedSequences,
+                                  final List<EventProcessor> runningProcessors)
+    {
+        super("Timed out draining to cursor " + cursor + ", undrained sequences " + undrainedSequences.values() +
+              ", processors still running " + runningProcessors.size());
+        this.cursor = cursor;
+        this.undrainedSequences = Collections.unmodifiableMap(undrainedSequences);
+        this.runningProcessors = Collections.unmodifiableList(runningProcessors);
+    }
+
+    /**
+     * @return the cursor of the {@link RingBuffer} at the time of the timeout.
+     */
+    public long getCursor()
+    {
+        return cursor;
+    }
+
+    /**
+     * @return the sequence of each processor that had not reached the cursor.
+     */
+    public Map<EventProcessor, Long> getUndrainedSequences()
+    {
+        return undrainedSequences;
+    }
+
+    /**
+     * @return the processors whose run loop had not exited.
+     */
+    public List<EventProcessor> getRunningProcessors()
+    {
+        return runningProcessors;
+    }
+
+    private static Map<EventProcessor, Long> undrainedSequences(final long cursor, final EventProcessor[] eventProcessors)
+    {
+        final Map<EventProcessor, Long> undrained = new IdentityHashMap<EventProcessor, Long>();
+        for (EventProcessor eventProcessor : eventProcessors)
+        {
+            final long sequence = eventProcessor.getSequence().get();
+            if (sequence < cursor)
+            {
+                undrained.put(eventProcessor, Long.valueOf(sequence));
+            }
+        }
+
+        return undrained;
+    }
+
+    private static List<EventProcessor> runningProcessors(final EventProcessor[] eventProcessors)
+    {
+        final List<EventProcessor> running = new ArrayList<EventProcessor>();
+        for (EventProcessor eventProcessor : eventProcessors)
+        {
+            if (eventProcessor.isRunning())
+            {
+                running.add(eventProcessor);
+            }
+        }
+
+        return running;
+    }
+}
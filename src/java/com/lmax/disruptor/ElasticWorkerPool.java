@@ -0,0 +1,302 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.lmax.disruptor.util.Util;
+
+/**
+ * A pool of {@link WorkProcessor}s, like the {@link WorkerPool}, whose number of workers follows the backlog.
+ *
+ * {@link #adjust()} is called periodically, for example from a scheduled executor.  A worker is added once the backlog,
+ * <code>cursor - min(worker sequences)</code>, has stayed above the high watermark for a number of consecutive checks,
+ * and the most recently added worker is retired once the pool has stayed idle for a number of checks.  Workers retire
+ * through {@link WorkProcessor#retire()} so the shared barrier is never alerted.
+ *
+ * The worker sequences are kept in a {@link SequenceGroup} returned by {@link #getWorkerSequence()}, which is used for
+ * gating instead of a fixed array.  A new worker joins at the current minimum so it never lets the publisher wrap past
+ * unfinished events, and a retired worker leaves the group only once its run loop has exited.  Until then it is halted
+ * with the pool.
+ *
+ * @param <T> event to be processed by a pool of workers
+ */
+public final class ElasticWorkerPool<T>
+{
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final Sequence workSequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+    private final SequenceGroup workerSequences = new SequenceGroup();
+    private final List<WorkProcessor<T>> workProcessors = new ArrayList<WorkProcessor<T>>();
+    private final List<WorkProcessor<T>> retiringWorkProcessors = new ArrayList<WorkProcessor<T>>();
+    private final RingBuffer<T> ringBuffer;
+    private final SequenceBarrier sequenceBarrier;
+    private final ExceptionHandler exceptionHandler;
+    private final WorkHandlerFactory<T> workHandlerFactory;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final long highWatermark;
+    private final int sustainedChecks;
+    private Executor executor;
+    private int busyChecks = 0;
+    private int idleChecks = 0;
+
+    /**
+     * Create an elastic worker pool.
+     *
+     * The pool's {@link #getWorkerSequence()} must be passed to {@link RingBuffer#setGatingSequences(Sequence...)},
+     * alone or with other sequences, before the pool is started.
+     *
+     * @param ringBuffer of events to be consumed.
+     * @param sequenceBarrier on which the workers will depend.
+     * @param exceptionHandler to callback when an error occurs which is not handled by the {@link WorkHandler}s.
+     * @param workHandlerFactory creating the handler of each worker.
+     * @param minWorkers number of workers the pool starts with and never goes below.
+     * @param maxWorkers number of workers the pool never goes above.
+     * @param highWatermark backlog above which the pool grows.
+     * @param sustainedChecks consecutive calls to {@link #adjust()} the backlog must stay above the high watermark, or
+     * the pool stay idle, before a worker is added or retired.
+     */
+    public ElasticWorkerPool(final RingBuffer<T> ringBuffer,
+                             final SequenceBarrier sequenceBarrier,
+                             final ExceptionHandler exceptionHandler,
+                             final WorkHandlerFactory<T> workHandlerFactory,
+                             final int minWorkers,
+                             final int maxWorkers,
+                             final long highWatermark,
+                             final int sustainedChecks)
+    {
+        if (minWorkers < 1 || maxWorkers < minWorkers)
+        {
+            throw new IllegalArgumentException("Worker counts must satisfy 1 <= minWorkers <= maxWorkers");
+        }
+        if (sustainedChecks < 1)
+        {
+            throw new IllegalArgumentException("sustainedChecks must be at least 1");
+        }
+
+        this.ringBuffer = ringBuffer;
+        this.sequenceBarrier = sequenceBarrier;
+        this.exceptionHandler = exceptionHandler;
+        this.workHandlerFactory = workHandlerFactory;
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.highWatermark = highWatermark;
+        this.sustainedChecks = sustainedChecks;
+    }
+
+    /**
+     * Get the {@link Sequence} tracking the minimum progress of the workers, for gating the {@link RingBuffer} or a
+     * downstream barrier.
+     *
+     * @return the group of worker sequences.
+     */
+    public Sequence getWorkerSequence()
+    {
+        return workerSequences;
+    }
+
+    /**
+     * Get the number of workers currently processing, not counting retiring workers.
+     *
+     * @return the number of workers.
+     */
+    public synchronized int getWorkerCount()
+    {
+        return workProcessors.size();
+    }
+
+    /**
+     * Start the pool with its minimum number of workers, or restart it after a halt with the workers it had.
+     *
+     * @param executor providing threads for running the workers, now and as they are added.
+     * @return the {@link RingBuffer} used for the work queue.
+     * @throws IllegalStateException is the pool has already been started and not halted yet
+     */
+    public synchronized RingBuffer<T> start(final Executor executor)
+    {
+        if (!started.compareAndSet(false, true))
+        {
+            throw new IllegalStateException("ElasticWorkerPool has already been started and cannot be restarted until halted.");
+        }
+
+        this.executor = executor;
+        final long cursor = ringBuffer.getCursor();
+        workSequence.set(cursor);
+        busyChecks = 0;
+        idleChecks = 0;
+
+        for (WorkProcessor<T> processor : workProcessors)
+        {
+            processor.getSequence().set(cursor);
+            execute(processor);
+        }
+
+        while (workProcessors.size() < minWorkers)
+        {
+            addWorker(cursor);
+        }
+
+        return ringBuffer;
+    }
+
+    /**
+     * Check the backlog and add or retire a worker if it has been high or empty for long enough.
+     *
+     * @return the change in the number of workers, 1, -1 or 0.
+     */
+    public synchronized int adjust()
+    {
+        if (!started.get())
+        {
+            return 0;
+        }
+
+        final long backlog = ringBuffer.getCursor() - workerSequences.get();
+        if (backlog > highWatermark)
+        {
+            idleChecks = 0;
+            if (++busyChecks >= sustainedChecks && workProcessors.size() < maxWorkers)
+            {
+                busyChecks = 0;
+                addWorker(workerSequences.get());
+                return 1;
+            }
+        }
+        else if (0L == backlog)
+        {
+            busyChecks = 0;
+            if (++idleChecks >= sustainedChecks && workProcessors.size() > minWorkers)
+            {
+                idleChecks = 0;
+                final WorkProcessor<T> processor = workProcessors.remove(workProcessors.size() - 1);
+                retiringWorkProcessors.add(processor);
+                processor.retire();
+                return -1;
+            }
+        }
+        else
+        {
+            busyChecks = 0;
+            idleChecks = 0;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Wait for the {@link RingBuffer} to drain of published events, halt the workers, including retiring ones, and
+     * wait for them to exit.
+     */
+    public void drainAndHalt()
+    {
+        long parkNanos = Util.MIN_PARK_NANOS;
+        while (ringBuffer.getCursor() > workerSequences.get())
+        {
+            parkNanos = Util.parkWithBackoff(parkNanos);
+        }
+
+        halt();
+
+        parkNanos = Util.MIN_PARK_NANOS;
+        while (isAnyRunning())
+        {
+            parkNanos = Util.parkWithBackoff(parkNanos);
+        }
+    }
+
+    /**
+     * Halt all workers immediately at then end of their current cycle.
+     */
+    public synchronized void halt()
+    {
+        for (WorkProcessor<T> processor : workProcessors)
+        {
+            processor.halt();
+        }
+        // 退役中的工作者可能仍阻塞在共享barrier上，同样需要停止
+        for (WorkProcessor<T> processor : retiringWorkProcessors)
+        {
+            processor.halt();
+        }
+
+        started.set(false);
+    }
+
+    private synchronized boolean isAnyRunning()
+    {
+        for (WorkProcessor<T> processor : workProcessors)
+        {
+            if (processor.isRunning())
+            {
+                return true;
+            }
+        }
+        for (WorkProcessor<T> processor : retiringWorkProcessors)
+        {
+            if (processor.isRunning())
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void addWorker(final long initialSequence)
+    {
+        final WorkProcessor<T> processor = new WorkProcessor<T>(ringBuffer,
+                                                                sequenceBarrier,
+                                                                workHandlerFactory.newInstance(),
+                                                                exceptionHandler,
+                                                                workSequence);
+        // 先设置序号再加入组，保证加入时不会让生产者越过未完成的事件
+        processor.getSequence().set(initialSequence);
+        workerSequences.add(processor.getSequence());
+        workProcessors.add(processor);
+
+        execute(processor);
+    }
+
+    private void execute(final WorkProcessor<T> processor)
+    {
+        executor.execute(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    processor.run();
+                }
+                finally
+                {
+                    if (removeRetired(processor))
+                    {
+                        workerSequences.remove(processor.getSequence());
+                    }
+                }
+            }
+        });
+    }
+
+    private synchronized boolean removeRetired(final WorkProcessor<T> processor)
+    {
+        return retiringWorkProcessors.remove(processor);
+    }
+}
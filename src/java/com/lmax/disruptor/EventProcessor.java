@@ -34,4 +34,12 @@ public interface EventProcessor extends Runnable
      * It will call {@link SequenceBarrier#alert()} to notify the thread to check status.
      */
     void halt();
+
+    /**
+     * Is the EventProcessor executing its {@link #run()} method.  After {@link #halt()} this stays true until the run
+     * loop has actually exited, so it can be used to await a clean stop.
+     *
+     * @return true while {@link #run()} is executing.
+     */
+    boolean isRunning();
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a linear chain of {@link BatchEventProcessor}s, where each stage is the only consumer of the one before it, on
+ * a single thread.  For each batch made available by the barrier of the first stage the {@link EventHandler}s are
+ * called in chain order, each over the whole batch, so every event is still seen by a stage only after the stages
+ * before it.  This saves a thread and a cross core {@link Sequence} handoff per stage for cheap handlers.
+ *
+ * The {@link Sequence} of each fused processor is advanced as its stage completes a batch, so anything gating on a
+ * stage keeps working.  Exceptions are passed to the {@link ExceptionHandler} of the stage that threw and the event is
+ * skipped by that stage only.  If an {@link ExceptionHandler} rethrows, the exception ends the fused thread, and with
+ * it every stage, as it would end the thread of that processor on its own.  Stages before it keep their progress, so
+ * no stage sees an event twice.  Handlers swapped with {@link BatchEventProcessor#swapEventHandler(EventHandler)} take
+ * over at the next batch boundary as they would on their own processor.  A batch is limited to the smallest maximum
+ * batch size of the stages.  Processors using a timeout or a {@link BatchRewindStrategy} can not be fused, see
+ * {@link #isFusible(EventProcessor)}.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ */
+public final class FusedEventProcessor<T>
+    implements EventProcessor
+{
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean runLoopActive = false;
+    private final RingBuffer<T> ringBuffer;
+    private final SequenceBarrier sequenceBarrier;
+    private final BatchEventProcessor<T>[] stages;
+    private final Sequence[] sequences;
+    private final int maxBatchSize;
+
+    /**
+     * Fuse a chain of processors.  The processors themselves must not be run.
+     *
+     * @param ringBuffer to which events are published.
+     * @param stages processors of the chain in order, each fusible and depending only on the one before it.
+     */
+    @SuppressWarnings("unchecked")
+    public FusedEventProcessor(final RingBuffer<T> ringBuffer, final List<BatchEventProcessor<T>> stages)
+    {
+        if (stages.isEmpty())
+        {
+            throw new IllegalArgumentException("At least one stage is required");
+        }
+
+        this.ringBuffer = ringBuffer;
+        this.stages = (BatchEventProcessor<T>[])stages.toArray(new BatchEventProcessor<?>[stages.size()]);
+        this.sequences = new Sequence[this.stages.length];
+        int maxBatchSize = Integer.MAX_VALUE;
+        for (int i = 0; i < this.stages.length; i++)
+        {
+            if (!this.stages[i].isFusible())
+            {
+                throw new IllegalArgumentException("Stage " + i + " can not be fused");
+            }
+            sequences[i] = this.stages[i].getSequence();
+            maxBatchSize = Math.min(maxBatchSize, this.stages[i].getMaxBatchSize());
+        }
+        this.maxBatchSize = maxBatchSize;
+
+        this.sequenceBarrier = this.stages[0].getSequenceBarrier();
+    }
+
+    /**
+     * Check if a processor can be a stage of a {@link FusedEventProcessor}.
+     *
+     * @param eventProcessor to check.
+     * @return true if it is a {@link BatchEventProcessor} without a timeout or rewind strategy that is not running.
+     */
+    public static boolean isFusible(final EventProcessor eventProcessor)
+    {
+        return eventProcessor instanceof BatchEventProcessor && ((BatchEventProcessor<?>)eventProcessor).isFusible();
+    }
+
+    /**
+     * The {@link Sequence} of the last stage, which has processed everything the chain has.
+     */
+    @Override
+    public Sequence getSequence()
+    {
+        return sequences[sequences.length - 1];
+    }
+
+    @Override
+    public void halt()
+    {
+        running.set(false);
+        sequenceBarrier.alert();
+    }
+
+    @Override
+    public boolean isRunning()
+    {
+        return runLoopActive;
+    }
+
+    @Override
+    public void run()
+    {
+        if (!running.compareAndSet(false, true))
+        {
+            throw new IllegalStateException("Thread is already running");
+        }
+        runLoopActive = true;
+        try
+        {
+            sequenceBarrier.clearAlert();
+
+            notifyStart();
+
+            // halt只在批之间生效，故重新运行时所有阶段的位置相同；异常处理器重新抛出时线程退出，不会从中间位置重跑
+            long nextSequence = getSequence().get() + 1L;
+            while (true)
+            {
+                final long availableSequence;
+                try
+                {
+                    availableSequence = Math.min(sequenceBarrier.waitFor(nextSequence), nextSequence + maxBatchSize - 1L);
+                }
+                catch (final AlertException ex)
+                {
+                    if (!running.get())
+                    {
+                        break;
+                    }
+                    continue;
+                }
+                catch (final Throwable ex)
+                {
+                    stages[0].getExceptionHandler().handleEventException(ex, nextSequence, null);
+                    continue;
+                }
+
+                // 阶段的异常处理器抛出的异常不在此捕获，与BatchEventProcessor一样结束线程，已完成的阶段不会重复处理本批
+                for (int i = 0; i < stages.length; i++)
+                {
+                    stages[i].applyEventHandlerSwap(true);
+                    processBatch(stages[i], nextSequence, availableSequence);
+                    sequences[i].set(availableSequence);
+                    ringBuffer.signalAllWhenBlocking();
+                }
+
+                nextSequence = availableSequence + 1L;
+            }
+
+            notifyShutdown();
+
+            running.set(false);
+        }
+        finally
+        {
+            runLoopActive = false;
+        }
+    }
+
+    private void processBatch(final BatchEventProcessor<T> stage, final long firstSequence, final long lastSequence)
+    {
+        final EventHandler<T> eventHandler = stage.getEventHandler();
+        for (long sequence = firstSequence; sequence <= lastSequence; sequence++)
+        {
+            final T event = ringBuffer.get(sequence);
+            try
+            {
+                eventHandler.onEvent(event, sequence, sequence == lastSequence);
+            }
+            catch (final Throwable ex)
+            {
+                stage.getExceptionHandler().handleEventException(ex, sequence, event);
+            }
+        }
+    }
+
+    private void notifyStart()
+    {
+        for (final BatchEventProcessor<T> stage : stages)
+        {
+            stage.applyEventHandlerSwap(false);
+            if (stage.getEventHandler() instanceof LifecycleAware)
+            {
+                try
+                {
+                    ((LifecycleAware)stage.getEventHandler()).onStart();
+                }
+                catch (final Throwable ex)
+                {
+                    stage.getExceptionHandler().handleOnStartException(ex);
+                }
+            }
+        }
+    }
+
+    private void notifyShutdown()
+    {
+        for (final BatchEventProcessor<T> stage : stages)
+        {
+            if (stage.getEventHandler() instanceof LifecycleAware)
+            {
+                try
+                {
+                    ((LifecycleAware)stage.getEventHandler()).onShutdown();
+                }
+                catch (final Throwable ex)
+                {
+                    stage.getExceptionHandler().handleOnShutdownException(ex);
+                }
+            }
+        }
+    }
+}
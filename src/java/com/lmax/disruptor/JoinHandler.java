@@ -0,0 +1,51 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Callback interface to be implemented by the user of a {@link JoinProcessor} to extract join keys and translate
+ * matched pairs into the output {@link RingBuffer}.
+ *
+ * @param <L> event implementation of the left {@link RingBuffer}, e.g. orders.
+ * @param <R> event implementation of the right {@link RingBuffer}, e.g. fills.
+ * @param <O> event implementation of the output {@link RingBuffer}.
+ */
+public interface JoinHandler<L, R, O>
+{
+    /**
+     * @param event from the left {@link RingBuffer}.
+     * @return the join key of the event.
+     */
+    long leftKey(L event);
+
+    /**
+     * @param event from the right {@link RingBuffer}.
+     * @return the join key of the event.
+     */
+    long rightKey(R event);
+
+    /**
+     * Translate a matched pair into fields set in the given output event.
+     *
+     * @param output event claimed from the output {@link RingBuffer}.
+     * @param outputSequence that is assigned to the output event.
+     * @param left matched event from the left {@link RingBuffer}.
+     * @param leftSequence of the left event.
+     * @param right matched event from the right {@link RingBuffer}.
+     * @param rightSequence of the right event.
+     */
+    void join(O output, long outputSequence, L left, long leftSequence, R right, long rightSequence);
+}
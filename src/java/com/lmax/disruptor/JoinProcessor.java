@@ -0,0 +1,299 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Correlates events arriving on two {@link RingBuffer}s on a single thread and publishes matched pairs into an
+ * output {@link RingBuffer}, replacing a polling thread joining through a concurrent map.
+ *
+ * Unmatched events are not copied.  Their key and sequence are kept in a bounded {@link JoinTable} of primitives
+ * while the events stay in their ring, so the left and right {@link Sequence}s only advance past the oldest event
+ * still waiting for a match.  Each side must include its sequence in the gating sequences of its {@link RingBuffer}.
+ *
+ * Left events are retained until they expire and can match many right events, while a right event is consumed by
+ * its first match, which suits e.g. orders on the left and their fills on the right.  Entries expire once they are
+ * <code>maxAgeSequences</code> behind the last event read from their ring, optionally once they have waited longer
+ * than <code>maxAgeNanos</code>, and the oldest entry is evicted when the table is full.
+ *
+ * @param <L> event implementation of the left {@link RingBuffer}.
+ * @param <R> event implementation of the right {@link RingBuffer}.
+ * @param <O> event implementation of the output {@link RingBuffer}.
+ */
+public final class JoinProcessor<L, R, O> implements Runnable
+{
+    private static final long IDLE_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(100L);
+    private static final int MAX_SIDE_BATCH = 64;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private ExceptionHandler exceptionHandler = new FatalExceptionHandler();
+    private final RingBuffer<L> leftRingBuffer;
+    private final SequenceBarrier leftBarrier;
+    private final RingBuffer<R> rightRingBuffer;
+    private final SequenceBarrier rightBarrier;
+    private final RingBuffer<O> outputRingBuffer;
+    private final JoinHandler<L, R, O> joinHandler;
+    private final Sequence leftSequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+    private final Sequence rightSequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+    private final JoinTable leftTable;
+    private final JoinTable rightTable;
+    private final long maxAgeSequences;
+    private final long maxAgeNanos;
+    private long nextLeft = Sequencer.INITIAL_CURSOR_VALUE + 1L;
+    private long nextRight = Sequencer.INITIAL_CURSOR_VALUE + 1L;
+
+    /**
+     * Construct a join over two {@link RingBuffer}s.
+     *
+     * @param leftRingBuffer of left events.
+     * @param leftBarrier on which left events are waited for.
+     * @param rightRingBuffer of right events.
+     * @param rightBarrier on which right events are waited for.
+     * @param outputRingBuffer into which matched pairs are published.
+     * @param joinHandler providing keys and translating matched pairs.
+     * @param capacity maximum number of unmatched events retained per side.
+     * @param maxAgeSequences after which an unmatched event expires, must be less than the size of its ring.
+     * @param maxAgeNanos after which an unmatched event expires, 0 to only expire by sequence.
+     */
+    public JoinProcessor(final RingBuffer<L> leftRingBuffer,
+                         final SequenceBarrier leftBarrier,
+                         final RingBuffer<R> rightRingBuffer,
+                         final SequenceBarrier rightBarrier,
+                         final RingBuffer<O> outputRingBuffer,
+                         final JoinHandler<L, R, O> joinHandler,
+                         final int capacity,
+                         final long maxAgeSequences,
+                         final long maxAgeNanos)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+
+        if (maxAgeSequences < 1L ||
+            maxAgeSequences >= leftRingBuffer.getBufferSize() ||
+            maxAgeSequences >= rightRingBuffer.getBufferSize())
+        {
+            throw new IllegalArgumentException("maxAgeSequences must be positive and less than the bufferSize of both rings");
+        }
+
+        if (maxAgeNanos < 0L)
+        {
+            throw new IllegalArgumentException("maxAgeNanos must not be negative");
+        }
+
+        this.leftRingBuffer = leftRingBuffer;
+        this.leftBarrier = leftBarrier;
+        this.rightRingBuffer = rightRingBuffer;
+        this.rightBarrier = rightBarrier;
+        this.outputRingBuffer = outputRingBuffer;
+        this.joinHandler = joinHandler;
+        this.maxAgeSequences = maxAgeSequences;
+        this.maxAgeNanos = maxAgeNanos;
+        leftTable = new JoinTable(capacity);
+        rightTable = new JoinTable(capacity);
+    }
+
+    /**
+     * @return the {@link Sequence} gating the left {@link RingBuffer}.
+     */
+    public Sequence getLeftSequence()
+    {
+        return leftSequence;
+    }
+
+    /**
+     * @return the {@link Sequence} gating the right {@link RingBuffer}.
+     */
+    public Sequence getRightSequence()
+    {
+        return rightSequence;
+    }
+
+    /**
+     * Signal that this processor should stop when it has finished consuming at the next clean break.
+     */
+    public void halt()
+    {
+        running.set(false);
+        leftBarrier.alert();
+        rightBarrier.alert();
+    }
+
+    /**
+     * Set a new {@link ExceptionHandler} for handling exceptions propagated out of the {@link JoinHandler}.
+     *
+     * @param exceptionHandler to replace the existing exceptionHandler.
+     */
+    public void setExceptionHandler(final ExceptionHandler exceptionHandler)
+    {
+        if (null == exceptionHandler)
+        {
+            throw new NullPointerException();
+        }
+
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    /**
+     * It is ok to have another thread rerun this method after a halt().
+     */
+    @Override
+    public void run()
+    {
+        if (!running.compareAndSet(false, true))
+        {
+            throw new IllegalStateException("Thread is already running");
+        }
+
+        leftBarrier.clearAlert();
+        rightBarrier.clearAlert();
+
+        long pollNanos = 0L;
+        while (true)
+        {
+            try
+            {
+                final long lastLeft = nextLeft;
+                final long lastRight = nextRight;
+
+                final long deadlineNanos = System.nanoTime() + pollNanos;
+
+                // bounded batches per side keep the two streams aligned so matches are not expired by skew
+                final long availableLeft = Math.min(poll(leftBarrier, nextLeft, deadlineNanos),
+                                                    nextLeft + MAX_SIDE_BATCH - 1L);
+                while (nextLeft <= availableLeft)
+                {
+                    onLeft(nextLeft++);
+                }
+
+                final long availableRight = Math.min(poll(rightBarrier, nextRight, deadlineNanos),
+                                                     nextRight + MAX_SIDE_BATCH - 1L);
+                while (nextRight <= availableRight)
+                {
+                    onRight(nextRight++);
+                }
+
+                pollNanos = (lastLeft == nextLeft && lastRight == nextRight) ? IDLE_POLL_NANOS : 0L;
+                expire();
+            }
+            catch (final AlertException ex)
+            {
+                if (!running.get())
+                {
+                    break;
+                }
+            }
+            catch (final Throwable ex)
+            {
+                exceptionHandler.handleEventException(ex, Math.max(nextLeft, nextRight) - 1L, null);
+            }
+        }
+
+        running.set(false);
+    }
+
+    private static long poll(final SequenceBarrier barrier, final long nextSequence, final long deadlineNanos)
+        throws AlertException, InterruptedException
+    {
+        try
+        {
+            return barrier.waitUntil(nextSequence, deadlineNanos);
+        }
+        catch (final TimeoutException ex)
+        {
+            return nextSequence - 1L;
+        }
+    }
+
+    private void onLeft(final long sequence)
+    {
+        final L left = leftRingBuffer.get(sequence);
+        final long key = joinHandler.leftKey(left);
+
+        int entry = rightTable.first(key);
+        while (-1 != entry)
+        {
+            final int nextEntry = rightTable.nextWithKey(entry);
+            final long rightSequence = rightTable.sequenceOf(entry);
+            rightTable.remove(entry);
+            publish(left, sequence, rightRingBuffer.get(rightSequence), rightSequence);
+            entry = nextEntry;
+        }
+
+        if (leftTable.isFull())
+        {
+            leftTable.evictOldest();
+        }
+        leftTable.add(key, sequence, arrivalNanos());
+    }
+
+    private void onRight(final long sequence)
+    {
+        final R right = rightRingBuffer.get(sequence);
+        final long key = joinHandler.rightKey(right);
+
+        final int entry = leftTable.first(key);
+        if (-1 != entry)
+        {
+            final long leftSequence = leftTable.sequenceOf(entry);
+            publish(leftRingBuffer.get(leftSequence), leftSequence, right, sequence);
+            return;
+        }
+
+        if (rightTable.isFull())
+        {
+            rightTable.evictOldest();
+        }
+        rightTable.add(key, sequence, arrivalNanos());
+    }
+
+    private long arrivalNanos()
+    {
+        return 0L != maxAgeNanos ? System.nanoTime() : 0L;
+    }
+
+    private void publish(final L left, final long leftSequence, final R right, final long rightSequence)
+    {
+        final long sequence = outputRingBuffer.next();
+        try
+        {
+            joinHandler.join(outputRingBuffer.get(sequence), sequence, left, leftSequence, right, rightSequence);
+        }
+        finally
+        {
+            outputRingBuffer.publish(sequence);
+        }
+    }
+
+    private void expire()
+    {
+        leftTable.expireBefore(nextLeft - maxAgeSequences);
+        rightTable.expireBefore(nextRight - maxAgeSequences);
+
+        if (0L != maxAgeNanos)
+        {
+            final long minArrivalNanos = System.nanoTime() - maxAgeNanos;
+            leftTable.expireArrivedBefore(minArrivalNanos);
+            rightTable.expireArrivedBefore(minArrivalNanos);
+        }
+
+        leftSequence.set(Math.min(leftTable.lowestSequence(), nextLeft) - 1L);
+        rightSequence.set(Math.min(rightTable.lowestSequence(), nextRight) - 1L);
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.Arrays;
+
+import com.lmax.disruptor.util.Util;
+
+/**
+ * Bounded multimap from join key to the sequences of events waiting in their {@link RingBuffer}, used by the
+ * {@link JoinProcessor}.  Entries live in pre-allocated primitive arrays chained per bucket, and are additionally
+ * kept in arrival order so the oldest can be expired and the lowest sequence still referenced is cheap to find.
+ */
+final class JoinTable
+{
+    private static final int NONE = -1;
+
+    private final long[] keys;
+    private final long[] sequences;
+    private final long[] arrivalNanos;
+    private final int[] next;
+    private final boolean[] live;
+    private final int[] buckets;
+    private final int bucketMask;
+    private final int[] arrivalOrder;
+    private final long[] arrivalSequences;
+    private final int capacity;
+    private int freeHead;
+    private long oldest = 0L;
+    private long youngest = 0L;
+    private int size = 0;
+
+    JoinTable(final int capacity)
+    {
+        this.capacity = capacity;
+        keys = new long[capacity];
+        sequences = new long[capacity];
+        arrivalNanos = new long[capacity];
+        next = new int[capacity];
+        live = new boolean[capacity];
+        buckets = new int[Util.ceilingNextPowerOfTwo(capacity)];
+        bucketMask = buckets.length - 1;
+        Arrays.fill(buckets, NONE);
+        arrivalOrder = new int[capacity];
+        arrivalSequences = new long[capacity];
+
+        for (int i = 0; i < capacity; i++)
+        {
+            next[i] = i + 1 < capacity ? i + 1 : NONE;
+        }
+        freeHead = 0;
+    }
+
+    // arrival slots of removed entries are only reclaimed once they reach the head, so bound on those rather than size
+    boolean isFull()
+    {
+        return youngest - oldest == capacity;
+    }
+
+    boolean isEmpty()
+    {
+        return 0 == size;
+    }
+
+    void add(final long key, final long sequence, final long nowNanos)
+    {
+        final int entry = freeHead;
+        freeHead = next[entry];
+
+        keys[entry] = key;
+        sequences[entry] = sequence;
+        arrivalNanos[entry] = nowNanos;
+        live[entry] = true;
+
+        final int bucket = bucket(key);
+        next[entry] = buckets[bucket];
+        buckets[bucket] = entry;
+
+        final int position = (int)(youngest++ % capacity);
+        arrivalOrder[position] = entry;
+        arrivalSequences[position] = sequence;
+        size++;
+    }
+
+    /**
+     * @return the first entry for the key, or -1 if there is none.
+     */
+    int first(final long key)
+    {
+        return find(buckets[bucket(key)], key);
+    }
+
+    /**
+     * @return the entry following the given one with the same key, or -1 if there is none.
+     */
+    int nextWithKey(final int entry)
+    {
+        return find(next[entry], keys[entry]);
+    }
+
+    long sequenceOf(final int entry)
+    {
+        return sequences[entry];
+    }
+
+    void remove(final int entry)
+    {
+        final int bucket = bucket(keys[entry]);
+        if (buckets[bucket] == entry)
+        {
+            buckets[bucket] = next[entry];
+        }
+        else
+        {
+            int previous = buckets[bucket];
+            while (next[previous] != entry)
+            {
+                previous = next[previous];
+            }
+            next[previous] = next[entry];
+        }
+
+        live[entry] = false;
+        next[entry] = freeHead;
+        freeHead = entry;
+        size--;
+        skipRemoved();
+    }
+
+    /**
+     * Remove entries for sequences lower than the given one.
+     *
+     * @return the number of entries removed.
+     */
+    int expireBefore(final long minSequence)
+    {
+        int removed = 0;
+        while (oldest != youngest && arrivalSequences[(int)(oldest % capacity)] < minSequence)
+        {
+            remove(arrivalOrder[(int)(oldest % capacity)]);
+            removed++;
+        }
+
+        return removed;
+    }
+
+    /**
+     * Remove entries which arrived before the given time.
+     *
+     * @return the number of entries removed.
+     */
+    int expireArrivedBefore(final long minArrivalNanos)
+    {
+        int removed = 0;
+        while (oldest != youngest && arrivalNanos[arrivalOrder[(int)(oldest % capacity)]] - minArrivalNanos < 0L)
+        {
+            remove(arrivalOrder[(int)(oldest % capacity)]);
+            removed++;
+        }
+
+        return removed;
+    }
+
+    /**
+     * Remove the oldest entry to make room when the table is full.
+     */
+    void evictOldest()
+    {
+        remove(arrivalOrder[(int)(oldest % capacity)]);
+    }
+
+    /**
+     * @return the lowest sequence still referenced, or {@link Long#MAX_VALUE} when empty.
+     */
+    long lowestSequence()
+    {
+        return oldest != youngest ? arrivalSequences[(int)(oldest % capacity)] : Long.MAX_VALUE;
+    }
+
+    private void skipRemoved()
+    {
+        while (oldest != youngest)
+        {
+            final int position = (int)(oldest % capacity);
+            final int entry = arrivalOrder[position];
+            if (live[entry] && sequences[entry] == arrivalSequences[position])
+            {
+                break;
+            }
+            oldest++;
+        }
+    }
+
+    private int find(int entry, final long key)
+    {
+        while (NONE != entry && keys[entry] != key)
+        {
+            entry = next[entry];
+        }
+
+        return entry;
+    }
+
+    private int bucket(final long key)
+    {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32)) & bucketMask;
+    }
+}
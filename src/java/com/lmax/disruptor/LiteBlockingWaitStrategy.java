@@ -0,0 +1,151 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.lmax.disruptor.util.Util.getMinimumSequence;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Variation of the {@link BlockingWaitStrategy} that keeps the lock off the publisher's path unless a waiter needs
+ * waking.
+ *
+ * A waiting {@link EventProcessor} announces itself by raising a flag and then re-checks the cursor before blocking,
+ * so a publish racing with the announcement is not missed.  {@link #signalAllWhenBlocking()} only reads the flag,
+ * and takes the lock to signal at most once per announcement.  As the cursor is published with an ordered store
+ * rather than a full fence, waiters also wake up after a millisecond to bound the latency of that rare race.
+ * Waits on dependent {@link EventProcessor}s block in the same way, woken by {@link Sequencer#signalAllWhenBlocking()}.
+ * 发布者只做一次volatile读，只有在有消费者声明等待时才加锁唤醒。
+ */
+public final class LiteBlockingWaitStrategy implements WaitStrategy
+{
+    private static final long MAX_AWAIT_NANOS = MILLISECONDS.toNanos(1L);
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition processorNotifyCondition = lock.newCondition();
+    private final AtomicBoolean signalNeeded = new AtomicBoolean(false);
+
+    @Override
+    public long waitFor(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier)
+        throws AlertException, InterruptedException
+    {
+        long availableSequence;
+        if ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
+        {
+            lock.lock();
+            try
+            {
+                while (true)
+                {
+                    signalNeeded.set(true);
+                    if ((availableSequence = getAvailableSequence(cursor, dependents)) >= sequence)
+                    {
+                        break;
+                    }
+
+                    barrier.checkAlert();
+                    processorNotifyCondition.awaitNanos(MAX_AWAIT_NANOS);
+                }
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public long waitFor(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                        final long timeout, final TimeUnit sourceUnit)
+        throws AlertException, InterruptedException
+    {
+        try
+        {
+            return waitUntil(sequence, cursor, dependents, barrier, System.nanoTime() + sourceUnit.toNanos(timeout));
+        }
+        catch (final TimeoutException ex)
+        {
+            return getAvailableSequence(cursor, dependents);
+        }
+    }
+
+    @Override
+    public long waitUntil(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                          final long deadlineNanos)
+        throws AlertException, InterruptedException, TimeoutException
+    {
+        long availableSequence;
+        if ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
+        {
+            lock.lock();
+            try
+            {
+                while (true)
+                {
+                    signalNeeded.set(true);
+                    if ((availableSequence = getAvailableSequence(cursor, dependents)) >= sequence)
+                    {
+                        break;
+                    }
+
+                    barrier.checkAlert();
+
+                    final long remainingNanos = deadlineNanos - System.nanoTime();
+                    if (remainingNanos <= 0L)
+                    {
+                        throw TimeoutException.INSTANCE;
+                    }
+                    processorNotifyCondition.awaitNanos(Math.min(remainingNanos, MAX_AWAIT_NANOS));
+                }
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking()
+    {
+        if (signalNeeded.get() && signalNeeded.getAndSet(false))
+        {
+            lock.lock();
+            try
+            {
+                processorNotifyCondition.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static long getAvailableSequence(final Sequence cursor, final Sequence[] dependents)
+    {
+        return 0 == dependents.length ? cursor.get() : getMinimumSequence(dependents);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link BatchRewindStrategy} that pauses for a fixed number of nanoseconds before the batch is re-delivered, giving
+ * a failing downstream resource time to recover.
+ */
+public final class NanosecondPauseBatchRewindStrategy implements BatchRewindStrategy
+{
+    private final long pauseNanos;
+
+    /**
+     * @param pauseNanos to pause before each rewind, 0 to rewind immediately.
+     */
+    public NanosecondPauseBatchRewindStrategy(final long pauseNanos)
+    {
+        if (pauseNanos < 0L)
+        {
+            throw new IllegalArgumentException("pauseNanos must not be negative");
+        }
+
+        this.pauseNanos = pauseNanos;
+    }
+
+    @Override
+    public void beforeRewind(final RewindableException ex, final int attempts)
+    {
+        if (0L != pauseNanos)
+        {
+            LockSupport.parkNanos(pauseNanos);
+        }
+    }
+}
@@ -44,6 +44,12 @@ public final class NoOpEventProcessor implements EventProcessor
     {
     }
 
+    @Override
+    public boolean isRunning()
+    {
+        return false;
+    }
+
     @Override
     public void run()
     {
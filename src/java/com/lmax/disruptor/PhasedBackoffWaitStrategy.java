@@ -0,0 +1,195 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.lmax.disruptor.util.Util.getMinimumSequence;
+
+/**
+ * Phased wait strategy for {@link EventProcessor}s waiting on a barrier.
+ *
+ * It busy spins for <code>spinTimeout</code>, then calls Thread.yield() until <code>yieldTimeout</code>, and then
+ * falls back to the configured {@link WaitStrategy}, typically a {@link BlockingWaitStrategy} or
+ * {@link SleepingWaitStrategy}.  Bursts of events are picked up with spin level latency while a quiet consumer
+ * costs almost no CPU.
+ * 先自旋，再让出CPU，超过阈值后交给后备策略（如加锁阻塞）。突发流量低延迟，空闲时几乎不占CPU。
+ */
+public final class PhasedBackoffWaitStrategy implements WaitStrategy
+{
+    // 每自旋这么多次才读一次时钟
+    private static final int SPIN_TRIES = 100;
+
+    private final long spinTimeoutNanos;
+    private final long yieldTimeoutNanos;
+    private final WaitStrategy fallbackStrategy;
+
+    /**
+     * Construct a phased wait strategy.
+     *
+     * @param spinTimeout time to busy spin before yielding.
+     * @param yieldTimeout time, from the start of the wait, after which to use the fallback strategy.
+     * @param units of the timeout values.
+     * @param fallbackStrategy for waiting once the yield timeout has elapsed.
+     */
+    public PhasedBackoffWaitStrategy(final long spinTimeout,
+                                     final long yieldTimeout,
+                                     final TimeUnit units,
+                                     final WaitStrategy fallbackStrategy)
+    {
+        if (spinTimeout < 0L || yieldTimeout < spinTimeout)
+        {
+            throw new IllegalArgumentException("Timeouts must satisfy 0 <= spinTimeout <= yieldTimeout");
+        }
+
+        this.spinTimeoutNanos = units.toNanos(spinTimeout);
+        this.yieldTimeoutNanos = units.toNanos(yieldTimeout);
+        this.fallbackStrategy = fallbackStrategy;
+    }
+
+    /**
+     * Block with a {@link BlockingWaitStrategy} once the yield phase is over.
+     *
+     * @param spinTimeout time to busy spin before yielding.
+     * @param yieldTimeout time, from the start of the wait, after which to block.
+     * @param units of the timeout values.
+     * @return the wait strategy.
+     */
+    public static PhasedBackoffWaitStrategy withLock(final long spinTimeout, final long yieldTimeout, final TimeUnit units)
+    {
+        return new PhasedBackoffWaitStrategy(spinTimeout, yieldTimeout, units, new BlockingWaitStrategy());
+    }
+
+    /**
+     * Sleep with a {@link SleepingWaitStrategy} once the yield phase is over.
+     *
+     * @param spinTimeout time to busy spin before yielding.
+     * @param yieldTimeout time, from the start of the wait, after which to sleep.
+     * @param units of the timeout values.
+     * @return the wait strategy.
+     */
+    public static PhasedBackoffWaitStrategy withSleep(final long spinTimeout, final long yieldTimeout, final TimeUnit units)
+    {
+        return new PhasedBackoffWaitStrategy(spinTimeout, yieldTimeout, units, new SleepingWaitStrategy());
+    }
+
+    @Override
+    public long waitFor(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier)
+        throws AlertException, InterruptedException
+    {
+        long availableSequence;
+        long startTime = 0L;
+        int counter = SPIN_TRIES;
+
+        while ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
+        {
+            barrier.checkAlert();
+
+            if (0 == --counter)
+            {
+                if (0L == startTime)
+                {
+                    startTime = System.nanoTime();
+                }
+                else
+                {
+                    final long timeDelta = System.nanoTime() - startTime;
+                    if (timeDelta > yieldTimeoutNanos)
+                    {
+                        return fallbackStrategy.waitFor(sequence, cursor, dependents, barrier);
+                    }
+                    else if (timeDelta > spinTimeoutNanos)
+                    {
+                        Thread.yield();
+                    }
+                }
+                counter = SPIN_TRIES;
+            }
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public long waitFor(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                        final long timeout, final TimeUnit sourceUnit)
+        throws AlertException, InterruptedException
+    {
+        try
+        {
+            return waitUntil(sequence, cursor, dependents, barrier, System.nanoTime() + sourceUnit.toNanos(timeout));
+        }
+        catch (final TimeoutException ex)
+        {
+            return getAvailableSequence(cursor, dependents);
+        }
+    }
+
+    @Override
+    public long waitUntil(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                          final long deadlineNanos)
+        throws AlertException, InterruptedException, TimeoutException
+    {
+        long availableSequence;
+        long startTime = 0L;
+        int counter = SPIN_TRIES;
+
+        while ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
+        {
+            barrier.checkAlert();
+
+            if (0 == --counter)
+            {
+                final long now = System.nanoTime();
+                if (now - deadlineNanos >= 0L)
+                {
+                    throw TimeoutException.INSTANCE;
+                }
+
+                if (0L == startTime)
+                {
+                    startTime = now;
+                }
+                else
+                {
+                    final long timeDelta = now - startTime;
+                    if (timeDelta > yieldTimeoutNanos)
+                    {
+                        return fallbackStrategy.waitUntil(sequence, cursor, dependents, barrier, deadlineNanos);
+                    }
+                    else if (timeDelta > spinTimeoutNanos)
+                    {
+                        Thread.yield();
+                    }
+                }
+                counter = SPIN_TRIES;
+            }
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking()
+    {
+        fallbackStrategy.signalAllWhenBlocking();
+    }
+
+    private static long getAvailableSequence(final Sequence cursor, final Sequence[] dependents)
+    {
+        return 0 == dependents.length ? cursor.get() : getMinimumSequence(dependents);
+    }
+}
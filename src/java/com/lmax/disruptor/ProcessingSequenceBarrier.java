@@ -55,6 +55,15 @@ final class ProcessingSequenceBarrier implements SequenceBarrier
         return waitStrategy.waitFor(sequence, cursorSequence, dependentSequences, this, timeout, units);
     }
 
+    @Override
+    public long waitUntil(final long sequence, final long deadlineNanos)
+        throws AlertException, InterruptedException, TimeoutException
+    {
+        checkAlert();
+
+        return waitStrategy.waitUntil(sequence, cursorSequence, dependentSequences, this, deadlineNanos);
+    }
+
     @Override
     public long getCursor()
     {
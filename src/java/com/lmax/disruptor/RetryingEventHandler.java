@@ -0,0 +1,151 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link EventHandler} decorator that re-invokes the delegate with exponential backoff when it throws, and after the
+ * configured number of attempts copies the event into a dead-letter {@link RingBuffer} processed by its own handler.
+ *
+ * Retries happen inside {@link #onEvent(Object, long, boolean)} so the {@link BatchEventProcessor} does not release
+ * the sequence while it is being retried.  An event which exhausts its attempts is moved aside rather than stalling
+ * the main {@link RingBuffer}.  If the dead-letter {@link RingBuffer} is full the last failure is rethrown so the
+ * {@link ExceptionHandler} of the processor decides, and the event is never silently dropped.
+ *
+ * The delegate must be idempotent for the part of its work done before failing as it will see the same event again.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ * @param <D> event implementation stored in the dead-letter {@link RingBuffer}.
+ */
+public final class RetryingEventHandler<T, D>
+    implements EventHandler<T>, LifecycleAware
+{
+    private final EventHandler<T> eventHandler;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final RingBuffer<D> deadLetterRingBuffer;
+    private final DeadLetterTranslator<T, D> deadLetterTranslator;
+
+    /**
+     * Construct a retrying decorator around an {@link EventHandler}.
+     *
+     * @param eventHandler is the delegate to which events are dispatched.
+     * @param maxAttempts total number of invocations of the delegate for an event, including the first.
+     * @param initialBackoffNanos pause before the first retry, doubled for every further retry.
+     * @param maxBackoffNanos upper bound of the pause between retries.
+     * @param deadLetterRingBuffer into which events that exhausted their attempts are published.
+     * @param deadLetterTranslator to copy failed events into the dead-letter {@link RingBuffer}.
+     */
+    public RetryingEventHandler(final EventHandler<T> eventHandler,
+                                final int maxAttempts,
+                                final long initialBackoffNanos,
+                                final long maxBackoffNanos,
+                                final RingBuffer<D> deadLetterRingBuffer,
+                                final DeadLetterTranslator<T, D> deadLetterTranslator)
+    {
+        if (maxAttempts < 1)
+        {
+            throw new IllegalArgumentException("maxAttempts must be greater than 0");
+        }
+
+        if (initialBackoffNanos < 0L || maxBackoffNanos < initialBackoffNanos)
+        {
+            throw new IllegalArgumentException("Backoff must satisfy 0 <= initialBackoffNanos <= maxBackoffNanos");
+        }
+
+        this.eventHandler = eventHandler;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.deadLetterRingBuffer = deadLetterRingBuffer;
+        this.deadLetterTranslator = deadLetterTranslator;
+    }
+
+    @Override
+    public void onEvent(final T event, final long sequence, final boolean endOfBatch)
+        throws Exception
+    {
+        long backoffNanos = initialBackoffNanos;
+        int attempts = 0;
+        while (true)
+        {
+            try
+            {
+                attempts++;
+                eventHandler.onEvent(event, sequence, endOfBatch);
+                return;
+            }
+            catch (final Exception ex)
+            {
+                if (attempts >= maxAttempts)
+                {
+                    publishDeadLetter(event, sequence, ex, attempts);
+                    return;
+                }
+            }
+
+            if (backoffNanos > 0L)
+            {
+                LockSupport.parkNanos(backoffNanos);
+                backoffNanos = Math.min(backoffNanos << 1, maxBackoffNanos);
+            }
+        }
+    }
+
+    @Override
+    public void onStart()
+    {
+        if (eventHandler instanceof LifecycleAware)
+        {
+            ((LifecycleAware)eventHandler).onStart();
+        }
+    }
+
+    @Override
+    public void onShutdown()
+    {
+        if (eventHandler instanceof LifecycleAware)
+        {
+            ((LifecycleAware)eventHandler).onShutdown();
+        }
+    }
+
+    private void publishDeadLetter(final T event, final long sequence, final Exception cause, final int attempts)
+        throws Exception
+    {
+        final long deadLetterSequence;
+        try
+        {
+            deadLetterSequence = deadLetterRingBuffer.tryNext(1);
+        }
+        catch (final InsufficientCapacityException ex)
+        {
+            throw cause;
+        }
+
+        try
+        {
+            deadLetterTranslator.translateTo(deadLetterRingBuffer.get(deadLetterSequence), deadLetterSequence,
+                                             event, sequence, cause, attempts);
+        }
+        finally
+        {
+            deadLetterRingBuffer.publish(deadLetterSequence);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Thrown by an {@link EventHandler} to ask the {@link BatchEventProcessor} to re-deliver the whole current batch
+ * from its first event, rather than skipping the single event that failed.
+ *
+ * Rewinding only happens when a {@link BatchRewindStrategy} has been set via
+ * {@link BatchEventProcessor#setRewindStrategy(BatchRewindStrategy, int)}, otherwise this is handled like any other
+ * exception by the {@link ExceptionHandler}.
+ */
+@SuppressWarnings("serial")
+public class RewindableException extends Exception
+{
+    /**
+     * Construct a request to rewind caused by a failure of the handler.
+     *
+     * @param cause of the failure which requires the batch to be re-delivered.
+     */
+    public RewindableException(final Throwable cause)
+    {
+        super("REWINDING BATCH", cause);
+    }
+}
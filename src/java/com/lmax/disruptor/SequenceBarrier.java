@@ -39,12 +39,24 @@ public interface SequenceBarrier
      * @param sequence to wait for
      * @param timeout value
      * @param units for the timeout value
-     * @return the sequence up to which is available
+     * @return the sequence up to which is available, which is less than the sequence requested if the wait timed out
      * @throws AlertException if a status change has occurred for the Disruptor
      * @throws InterruptedException if the thread needs awaking on a condition variable.
      */
     long waitFor(long sequence, long timeout, TimeUnit units) throws AlertException, InterruptedException;
 
+    /**
+     * Wait for the given sequence to be available for consumption until a deadline has passed.
+     *
+     * @param sequence to wait for
+     * @param deadlineNanos value of {@link System#nanoTime()} after which to give up
+     * @return the sequence up to which is available
+     * @throws AlertException if a status change has occurred for the Disruptor
+     * @throws InterruptedException if the thread needs awaking on a condition variable.
+     * @throws TimeoutException if the deadline passed before the sequence became available.
+     */
+    long waitUntil(long sequence, long deadlineNanos) throws AlertException, InterruptedException, TimeoutException;
+
     /**
      * Delegate a call to the {@link Sequencer#getCursor()}
      *
@@ -31,6 +31,8 @@ public class Sequencer
 
     private final ClaimStrategy claimStrategy;
     private final WaitStrategy waitStrategy;
+    // 已创建过屏障的等待策略，发布时只唤醒这些策略
+    private volatile WaitStrategy[] barrierWaitStrategies = new WaitStrategy[0];
 
     /**
      * Construct a Sequencer with the selected strategies.
@@ -65,6 +67,28 @@ public class Sequencer
      */
     public SequenceBarrier newBarrier(final Sequence... sequencesToTrack)
     {
+        return newBarrier(waitStrategy, sequencesToTrack);
+    }
+
+    /**
+     * Create a {@link SequenceBarrier} that gates on the the cursor and a list of {@link Sequence}s and waits with its
+     * own {@link WaitStrategy} rather than the one this Sequencer was constructed with.
+     *
+     * Latency critical {@link EventProcessor}s can then spin while others on the same ring block or sleep.  Publishing
+     * signals each distinct strategy that has a barrier once, so a strategy not used by any barrier costs nothing.
+     *
+     * @param waitStrategy for the {@link EventProcessor}s waiting on the barrier.
+     * @param sequencesToTrack this barrier will track
+     * @return the barrier gated as required
+     */
+    public SequenceBarrier newBarrier(final WaitStrategy waitStrategy, final Sequence... sequencesToTrack)
+    {
+        if (null == waitStrategy)
+        {
+            throw new NullPointerException("waitStrategy must not be null");
+        }
+
+        addBarrierWaitStrategy(waitStrategy);
         return new ProcessingSequenceBarrier(waitStrategy, cursor, sequencesToTrack);
     }
 
@@ -218,7 +242,7 @@ public class Sequencer
     public void forcePublish(final long sequence)
     {
         cursor.set(sequence);
-        waitStrategy.signalAllWhenBlocking();
+        signalAllWhenBlocking();
     }
 
     private void publish(final long sequence, final int batchSize)
@@ -226,7 +250,39 @@ public class Sequencer
     	// 发布
         claimStrategy.serialisePublishing(sequence, cursor, batchSize);
         // 唤醒所有block状态的消费线程
-        waitStrategy.signalAllWhenBlocking();
+        signalAllWhenBlocking();
+    }
+
+    /**
+     * Signal the {@link WaitStrategy}s of all barriers that a {@link Sequence} they may be waiting on has advanced.
+     *
+     * Publishing calls this for the cursor.  {@link EventProcessor}s call it after advancing their own sequence so
+     * that downstream processors blocked on them wake up.  It is cheap for strategies with nobody waiting.
+     */
+    public void signalAllWhenBlocking()
+    {
+        final WaitStrategy[] waitStrategies = barrierWaitStrategies;
+        for (int i = 0; i < waitStrategies.length; i++)
+        {
+            waitStrategies[i].signalAllWhenBlocking();
+        }
+    }
+
+    private synchronized void addBarrierWaitStrategy(final WaitStrategy waitStrategy)
+    {
+        final WaitStrategy[] currentWaitStrategies = barrierWaitStrategies;
+        for (WaitStrategy existing : currentWaitStrategies)
+        {
+            if (existing == waitStrategy)
+            {
+                return;
+            }
+        }
+
+        final WaitStrategy[] updatedWaitStrategies = new WaitStrategy[currentWaitStrategies.length + 1];
+        System.arraycopy(currentWaitStrategies, 0, updatedWaitStrategies, 0, currentWaitStrategies.length);
+        updatedWaitStrategies[currentWaitStrategies.length] = waitStrategy;
+        barrierWaitStrategies = updatedWaitStrategies;
     }
 
     public long remainingCapacity()
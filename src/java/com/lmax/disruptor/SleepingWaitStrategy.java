@@ -65,8 +65,21 @@ public final class SleepingWaitStrategy implements WaitStrategy
                         final long timeout, final TimeUnit sourceUnit)
         throws AlertException, InterruptedException
     {
-        final long timeoutMs = sourceUnit.toMillis(timeout);
-        final long startTime = System.currentTimeMillis();
+        try
+        {
+            return waitUntil(sequence, cursor, dependents, barrier, System.nanoTime() + sourceUnit.toNanos(timeout));
+        }
+        catch (final TimeoutException ex)
+        {
+            return 0 == dependents.length ? cursor.get() : getMinimumSequence(dependents);
+        }
+    }
+
+    @Override
+    public long waitUntil(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                          final long deadlineNanos)
+        throws AlertException, InterruptedException, TimeoutException
+    {
         long availableSequence;
         int counter = RETRIES;
 
@@ -75,12 +88,7 @@ public final class SleepingWaitStrategy implements WaitStrategy
             while ((availableSequence = cursor.get()) < sequence)
             {
                 counter = applyWaitMethod(barrier, counter);
-
-                final long elapsedTime = System.currentTimeMillis() - startTime;
-                if (elapsedTime > timeoutMs)
-                {
-                    break;
-                }
+                checkDeadline(counter, deadlineNanos);
             }
         }
         else
@@ -88,12 +96,7 @@ public final class SleepingWaitStrategy implements WaitStrategy
             while ((availableSequence = getMinimumSequence(dependents)) < sequence)
             {
                 counter = applyWaitMethod(barrier, counter);
-
-                final long elapsedTime = System.currentTimeMillis() - startTime;
-                if (elapsedTime > timeoutMs)
-                {
-                    break;
-                }
+                checkDeadline(counter, deadlineNanos);
             }
         }
 
@@ -133,4 +136,14 @@ public final class SleepingWaitStrategy implements WaitStrategy
 
         return counter;
     }
+
+    private static void checkDeadline(final int counter, final long deadlineNanos)
+        throws TimeoutException
+    {
+        // 自旋阶段不读时钟，进入yield和park阶段后每次都检查
+        if (counter <= 100 && System.nanoTime() - deadlineNanos >= 0L)
+        {
+            throw TimeoutException.INSTANCE;
+        }
+    }
 }
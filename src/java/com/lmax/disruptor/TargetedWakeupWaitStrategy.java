@@ -0,0 +1,213 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.lmax.disruptor.util.Util.getMinimumSequence;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Parking strategy for {@link EventProcessor}s waiting on a barrier that only wakes waiters which can make progress.
+ *
+ * Each waiting thread records the sequence it requested together with the cursor and dependent sequences of its
+ * barrier.  {@link #signalAllWhenBlocking()}, called on publish and by upstream processors through
+ * {@link Sequencer#signalAllWhenBlocking()}, unparks only the waiters whose requested sequence is now available or
+ * whose barrier has been alerted.  A consumer gated on an upstream stage that has not moved is left parked, which
+ * avoids the thundering herd of a condition variable in wide or diamond shaped topologies.
+ *
+ * Sequences are published with an ordered store, so a waiter also wakes up after a millisecond to bound the latency of
+ * the rare race with a concurrent signal.  Threads register on their first wait and are pruned once they have died,
+ * so the strategy suits long lived processor threads.  It does not spin; use it as the fallback of a
+ * {@link PhasedBackoffWaitStrategy} to pick up bursts at spin latency.  As it never holds a lock while parked it also
+ * lets processors running on virtual threads release their carrier thread.
+ * 只唤醒请求的序号已经可用的消费者，避免菱形等拓扑中一次发布唤醒所有消费者。
+ */
+public final class TargetedWakeupWaitStrategy implements WaitStrategy
+{
+    private static final long MAX_PARK_NANOS = MILLISECONDS.toNanos(1L);
+
+    private final AtomicReference<Waiter[]> waitersRef = new AtomicReference<Waiter[]>(new Waiter[0]);
+    private final ThreadLocal<Waiter> threadWaiter = new ThreadLocal<Waiter>()
+    {
+        @Override
+        protected Waiter initialValue()
+        {
+            return register(new Waiter(Thread.currentThread()));
+        }
+    };
+
+    @Override
+    public long waitFor(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier)
+        throws AlertException, InterruptedException
+    {
+        long availableSequence;
+        if ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
+        {
+            final Waiter waiter = prepare(sequence, cursor, dependents, barrier);
+            try
+            {
+                while ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
+                {
+                    barrier.checkAlert();
+                    park(MAX_PARK_NANOS);
+                }
+            }
+            finally
+            {
+                waiter.waiting = false;
+            }
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public long waitFor(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                        final long timeout, final TimeUnit sourceUnit)
+        throws AlertException, InterruptedException
+    {
+        try
+        {
+            return waitUntil(sequence, cursor, dependents, barrier, System.nanoTime() + sourceUnit.toNanos(timeout));
+        }
+        catch (final TimeoutException ex)
+        {
+            return getAvailableSequence(cursor, dependents);
+        }
+    }
+
+    @Override
+    public long waitUntil(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                          final long deadlineNanos)
+        throws AlertException, InterruptedException, TimeoutException
+    {
+        long availableSequence;
+        if ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
+        {
+            final Waiter waiter = prepare(sequence, cursor, dependents, barrier);
+            try
+            {
+                while ((availableSequence = getAvailableSequence(cursor, dependents)) < sequence)
+                {
+                    barrier.checkAlert();
+
+                    final long remainingNanos = deadlineNanos - System.nanoTime();
+                    if (remainingNanos <= 0L)
+                    {
+                        throw TimeoutException.INSTANCE;
+                    }
+                    park(Math.min(remainingNanos, MAX_PARK_NANOS));
+                }
+            }
+            finally
+            {
+                waiter.waiting = false;
+            }
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking()
+    {
+        final Waiter[] waiters = waitersRef.get();
+        for (int i = 0; i < waiters.length; i++)
+        {
+            final Waiter waiter = waiters[i];
+            if (waiter.waiting &&
+                (getAvailableSequence(waiter.cursor, waiter.dependents) >= waiter.sequence || waiter.barrier.isAlerted()))
+            {
+                LockSupport.unpark(waiter.thread);
+            }
+        }
+    }
+
+    private Waiter prepare(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier)
+    {
+        final Waiter waiter = threadWaiter.get();
+        waiter.sequence = sequence;
+        waiter.cursor = cursor;
+        waiter.dependents = dependents;
+        waiter.barrier = barrier;
+        // volatile写之后再检查序号，保证与唤醒方不会互相错过
+        waiter.waiting = true;
+
+        return waiter;
+    }
+
+    private Waiter register(final Waiter waiter)
+    {
+        Waiter[] oldWaiters;
+        Waiter[] newWaiters;
+        do
+        {
+            oldWaiters = waitersRef.get();
+            int live = 0;
+            newWaiters = new Waiter[oldWaiters.length + 1];
+            for (Waiter existing : oldWaiters)
+            {
+                if (existing.thread.isAlive())
+                {
+                    newWaiters[live++] = existing;
+                }
+            }
+            newWaiters[live++] = waiter;
+            if (live != newWaiters.length)
+            {
+                final Waiter[] prunedWaiters = new Waiter[live];
+                System.arraycopy(newWaiters, 0, prunedWaiters, 0, live);
+                newWaiters = prunedWaiters;
+            }
+        }
+        while (!waitersRef.compareAndSet(oldWaiters, newWaiters));
+
+        return waiter;
+    }
+
+    private static void park(final long nanos)
+        throws InterruptedException
+    {
+        LockSupport.parkNanos(nanos);
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+    }
+
+    private static long getAvailableSequence(final Sequence cursor, final Sequence[] dependents)
+    {
+        return 0 == dependents.length ? cursor.get() : getMinimumSequence(dependents);
+    }
+
+    private static final class Waiter
+    {
+        private final Thread thread;
+        private volatile boolean waiting = false;
+        private long sequence;
+        private Sequence cursor;
+        private Sequence[] dependents;
+        private SequenceBarrier barrier;
+
+        private Waiter(final Thread thread)
+        {
+            this.thread = thread;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Implement this interface in an {@link EventHandler} to be notified when no events have arrived within the timeout
+ * configured via {@link BatchEventProcessor#setTimeout(long, java.util.concurrent.TimeUnit)}.
+ *
+ * Typically this would be used by a handler batching writes until <code>endOfBatch</code> so aged data can be flushed
+ * during quiet periods without a separate timer thread.
+ */
+public interface TimeoutHandler
+{
+    /**
+     * Called on the thread of the {@link BatchEventProcessor} when the wait for the next event has timed out.
+     *
+     * @param sequence of the last event processed.
+     * @throws Exception if the TimeoutHandler would like the exception handled further up the chain.
+     */
+    void onTimeout(long sequence) throws Exception;
+}
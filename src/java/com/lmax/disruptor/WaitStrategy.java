@@ -48,12 +48,32 @@ public interface WaitStrategy
      * @return the sequence that is available which may be greater than the requested sequence.
      * @throws AlertException if the status of the Disruptor has changed.
      * @throws InterruptedException if the thread is interrupted.
-     * @deprecated Use a separate timeout event pushed into the Disruptor from different thread.
+     * @deprecated Use {@link #waitUntil(long, Sequence, Sequence[], SequenceBarrier, long)} which signals a timeout
+     * distinctly, or a separate timeout event pushed into the Disruptor from different thread.
      */
     @Deprecated
     long waitFor(long sequence, Sequence cursor, Sequence[] dependents, SequenceBarrier barrier, long timeout, TimeUnit sourceUnit)
         throws AlertException, InterruptedException;
 
+    /**
+     * Wait for the given sequence to be available until a deadline has passed.
+     *
+     * The deadline is in the {@link System#nanoTime()} timebase so a caller can compute it once and reuse it across
+     * calls.  Implementations only read the clock every few iterations of their wait loop.
+     *
+     * @param sequence to be waited on.
+     * @param cursor on which to wait.
+     * @param dependents further back the chain that must advance first
+     * @param barrier the processor is waiting on.
+     * @param deadlineNanos value of {@link System#nanoTime()} after which to give up.
+     * @return the sequence that is available which will be greater than or equal to the requested sequence.
+     * @throws AlertException if the status of the Disruptor has changed.
+     * @throws InterruptedException if the thread is interrupted.
+     * @throws TimeoutException if the deadline passed before the sequence became available.
+     */
+    long waitUntil(long sequence, Sequence cursor, Sequence[] dependents, SequenceBarrier barrier, long deadlineNanos)
+        throws AlertException, InterruptedException, TimeoutException;
+
     /**
      * Signal those {@link EventProcessor}s waiting that the cursor has advanced.
      */
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Primitive accumulator used by a {@link WindowAggregator}.  The state of each key occupies {@link #width()}
+ * consecutive slots of a pre-allocated <code>double[]</code> starting at the given offset, so no boxing or allocation
+ * happens per event.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ */
+public interface WindowAccumulator<T>
+{
+    /**
+     * @return number of <code>double</code> slots of state per key.
+     */
+    int width();
+
+    /**
+     * Set the state to the identity value of the aggregation, e.g. 0 for sums.
+     *
+     * @param state array holding the state.
+     * @param offset of the state for a key.
+     */
+    void reset(double[] state, int offset);
+
+    /**
+     * Fold an event into the state.
+     *
+     * @param event to be accumulated.
+     * @param state array holding the state.
+     * @param offset of the state for the key of the event.
+     */
+    void accumulate(T event, double[] state, int offset);
+
+    /**
+     * Merge partial state into target state, used to combine the panes of a sliding window.
+     *
+     * @param source array holding the partial state.
+     * @param sourceOffset of the partial state.
+     * @param target array holding the state to merge into.
+     * @param targetOffset of the state to merge into.
+     */
+    void combine(double[] source, int sourceOffset, double[] target, int targetOffset);
+}
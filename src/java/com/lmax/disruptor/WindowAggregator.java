@@ -0,0 +1,233 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.Arrays;
+
+import com.lmax.disruptor.util.Util;
+
+/**
+ * {@link EventHandler} aggregating events per key into tumbling or sliding windows, to be run by a
+ * {@link BatchEventProcessor}.  Each closed window is published, one event per key seen in the window, into an output
+ * {@link RingBuffer} via a {@link WindowTranslator}.
+ *
+ * Windows are built from panes of one slide each, and a sliding window is the combination of its panes.  Keys are
+ * mapped to slots by an open addressing table of primitive longs and all state lives in arrays pre-allocated for
+ * <code>maxKeys</code> keys, so there is no boxing or allocation per event.  Exceeding <code>maxKeys</code> distinct
+ * keys raises an {@link IllegalStateException}.
+ *
+ * A window is closed when the first event beyond it arrives.
+ *
+ * @param <T> event implementation being aggregated.
+ * @param <E> event implementation of the output {@link RingBuffer}.
+ */
+public final class WindowAggregator<T, E>
+    implements EventHandler<T>
+{
+    private static final int EMPTY = -1;
+
+    private final WindowKeyExtractor<T> keyExtractor;
+    private final WindowAccumulator<T> accumulator;
+    private final WindowPolicy windowPolicy;
+    private final RingBuffer<E> outputRingBuffer;
+    private final WindowTranslator<E> windowTranslator;
+
+    private final int width;
+    private final int maxKeys;
+    private final int panesPerWindow;
+    private final long[] tableKeys;
+    private final int[] tableSlots;
+    private final int tableMask;
+    private final long[] slotKeys;
+    private final double[][] paneState;
+    private final long[][] paneCounts;
+    private final double[] windowState;
+    private int keyCount = 0;
+    private long currentPane = -1L;
+
+    /**
+     * Construct a window aggregator.
+     *
+     * @param keyExtractor providing the key, and event time if required, of each event.
+     * @param accumulator folding events into primitive state.
+     * @param windowPolicy defining the windows.
+     * @param maxKeys maximum number of distinct keys.
+     * @param outputRingBuffer into which closed windows are published.
+     * @param windowTranslator to copy a closed window into an output event.
+     */
+    public WindowAggregator(final WindowKeyExtractor<T> keyExtractor,
+                            final WindowAccumulator<T> accumulator,
+                            final WindowPolicy windowPolicy,
+                            final int maxKeys,
+                            final RingBuffer<E> outputRingBuffer,
+                            final WindowTranslator<E> windowTranslator)
+    {
+        if (maxKeys < 1)
+        {
+            throw new IllegalArgumentException("maxKeys must be greater than 0");
+        }
+
+        this.keyExtractor = keyExtractor;
+        this.accumulator = accumulator;
+        this.windowPolicy = windowPolicy;
+        this.outputRingBuffer = outputRingBuffer;
+        this.windowTranslator = windowTranslator;
+
+        width = accumulator.width();
+        this.maxKeys = maxKeys;
+        panesPerWindow = (int)(windowPolicy.getSize() / windowPolicy.getSlide());
+
+        final int tableSize = Util.ceilingNextPowerOfTwo(maxKeys * 2);
+        tableKeys = new long[tableSize];
+        tableSlots = new int[tableSize];
+        Arrays.fill(tableSlots, EMPTY);
+        tableMask = tableSize - 1;
+        slotKeys = new long[maxKeys];
+
+        paneState = new double[panesPerWindow][maxKeys * width];
+        paneCounts = new long[panesPerWindow][maxKeys];
+        windowState = new double[width];
+        for (int pane = 0; pane < panesPerWindow; pane++)
+        {
+            resetPane(pane);
+        }
+    }
+
+    @Override
+    public void onEvent(final T event, final long sequence, final boolean endOfBatch)
+        throws Exception
+    {
+        final long time = windowPolicy.isSequenceBased() ? sequence : keyExtractor.timestampOf(event);
+        final long pane = time / windowPolicy.getSlide();
+
+        if (-1L == currentPane)
+        {
+            currentPane = pane;
+        }
+        else if (pane > currentPane)
+        {
+            advanceTo(pane);
+        }
+
+        final int slot = slotFor(keyExtractor.keyOf(event));
+        final int paneIndex = paneIndex(currentPane);
+        accumulator.accumulate(event, paneState[paneIndex], slot * width);
+        paneCounts[paneIndex][slot]++;
+    }
+
+    private void advanceTo(final long pane)
+    {
+        // windows ending after currentPane + panesPerWindow - 1 no longer contain any non-empty pane
+        final long lastClosed = Math.min(pane - 1L, currentPane + panesPerWindow - 1L);
+        for (long closing = currentPane; closing <= lastClosed; closing++)
+        {
+            emitWindow(closing);
+            resetPane(paneIndex(closing + 1L));
+        }
+
+        currentPane = pane;
+    }
+
+    private void emitWindow(final long lastPane)
+    {
+        final long slide = windowPolicy.getSlide();
+        final long windowStart = (lastPane - panesPerWindow + 1L) * slide;
+        final long windowEnd = (lastPane + 1L) * slide;
+
+        for (int slot = 0; slot < keyCount; slot++)
+        {
+            long count = 0L;
+            for (int i = 0; i < panesPerWindow; i++)
+            {
+                count += paneCounts[i][slot];
+            }
+
+            if (0L == count)
+            {
+                continue;
+            }
+
+            accumulator.reset(windowState, 0);
+            for (int i = 0; i < panesPerWindow; i++)
+            {
+                if (0L != paneCounts[i][slot])
+                {
+                    accumulator.combine(paneState[i], slot * width, windowState, 0);
+                }
+            }
+
+            final long sequence = outputRingBuffer.next();
+            try
+            {
+                windowTranslator.translateTo(outputRingBuffer.get(sequence), sequence, slotKeys[slot],
+                                             windowStart, windowEnd, count, windowState, 0);
+            }
+            finally
+            {
+                outputRingBuffer.publish(sequence);
+            }
+        }
+    }
+
+    private void resetPane(final int paneIndex)
+    {
+        final double[] state = paneState[paneIndex];
+        for (int slot = 0; slot < maxKeys; slot++)
+        {
+            accumulator.reset(state, slot * width);
+        }
+        Arrays.fill(paneCounts[paneIndex], 0L);
+    }
+
+    private int paneIndex(final long pane)
+    {
+        return (int)(pane % panesPerWindow);
+    }
+
+    private int slotFor(final long key)
+    {
+        int index = mix(key) & tableMask;
+        while (true)
+        {
+            final int slot = tableSlots[index];
+            if (EMPTY == slot)
+            {
+                if (keyCount == maxKeys)
+                {
+                    throw new IllegalStateException("More than " + maxKeys + " distinct keys in window aggregation");
+                }
+
+                tableKeys[index] = key;
+                tableSlots[index] = keyCount;
+                slotKeys[keyCount] = key;
+                return keyCount++;
+            }
+
+            if (key == tableKeys[index])
+            {
+                return slot;
+            }
+
+            index = (index + 1) & tableMask;
+        }
+    }
+
+    private static int mix(final long key)
+    {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Extracts the grouping key, and the event time if required, of an event being aggregated by a {@link WindowAggregator}.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ */
+public interface WindowKeyExtractor<T>
+{
+    /**
+     * @param event being aggregated.
+     * @return the key under which the event is aggregated.
+     */
+    long keyOf(T event);
+
+    /**
+     * Only called for {@link WindowPolicy}s measured in event time.  Timestamps must be non-negative and
+     * non-decreasing, late events are aggregated into the current window.
+     *
+     * @param event being aggregated.
+     * @return the event time.
+     */
+    long timestampOf(T event);
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Describes how a {@link WindowAggregator} groups events into windows.
+ *
+ * Windows are measured either in event time, as returned by {@link WindowKeyExtractor#timestampOf(Object)}, or in
+ * ring buffer sequences.  A window of <code>size</code> advances every <code>slide</code> units, so a tumbling window
+ * has <code>slide == size</code> and a sliding window a smaller slide which must divide the size.
+ */
+public final class WindowPolicy
+{
+    private final boolean sequenceBased;
+    private final long size;
+    private final long slide;
+
+    private WindowPolicy(final boolean sequenceBased, final long size, final long slide)
+    {
+        if (size < 1L || slide < 1L || slide > size || 0L != size % slide)
+        {
+            throw new IllegalArgumentException("slide must be positive and divide size, size=" + size + " slide=" + slide);
+        }
+
+        this.sequenceBased = sequenceBased;
+        this.size = size;
+        this.slide = slide;
+    }
+
+    /**
+     * Non overlapping windows of event time.
+     *
+     * @param size of each window in the units of the event timestamps.
+     * @return the window policy.
+     */
+    public static WindowPolicy tumblingByTime(final long size)
+    {
+        return new WindowPolicy(false, size, size);
+    }
+
+    /**
+     * Overlapping windows of event time.
+     *
+     * @param size of each window in the units of the event timestamps.
+     * @param slide between the start of consecutive windows, must divide size.
+     * @return the window policy.
+     */
+    public static WindowPolicy slidingByTime(final long size, final long slide)
+    {
+        return new WindowPolicy(false, size, slide);
+    }
+
+    /**
+     * Non overlapping windows of a fixed count of sequences.
+     *
+     * @param size of each window in sequences.
+     * @return the window policy.
+     */
+    public static WindowPolicy tumblingBySequence(final long size)
+    {
+        return new WindowPolicy(true, size, size);
+    }
+
+    /**
+     * Overlapping windows of a fixed count of sequences.
+     *
+     * @param size of each window in sequences.
+     * @param slide between the start of consecutive windows, must divide size.
+     * @return the window policy.
+     */
+    public static WindowPolicy slidingBySequence(final long size, final long slide)
+    {
+        return new WindowPolicy(true, size, slide);
+    }
+
+    /**
+     * @return true if windows are measured in sequences, false if in event time.
+     */
+    public boolean isSequenceBased()
+    {
+        return sequenceBased;
+    }
+
+    /**
+     * @return the size of a window.
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * @return the distance between the start of consecutive windows.
+     */
+    public long getSlide()
+    {
+        return slide;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Translates the aggregated state of a closed window into an event claimed from the output {@link RingBuffer}
+ * of a {@link WindowAggregator}.
+ *
+ * @param <E> event implementation of the output {@link RingBuffer}.
+ */
+public interface WindowTranslator<E>
+{
+    /**
+     * @param event into which the window should be translated.
+     * @param sequence that is assigned to event.
+     * @param key of the aggregated events.
+     * @param windowStart inclusive start of the window.
+     * @param windowEnd exclusive end of the window.
+     * @param count of events aggregated in the window for the key.
+     * @param state array holding the aggregated state, only valid for the duration of the call.
+     * @param offset of the aggregated state.
+     */
+    void translateTo(E event, long sequence, long key, long windowStart, long windowEnd, long count, double[] state, int offset);
+}
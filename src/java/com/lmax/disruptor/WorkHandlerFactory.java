@@ -0,0 +1,31 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Called by an {@link ElasticWorkerPool} to create the {@link WorkHandler} of each worker it adds.
+ *
+ * @param <T> event implementation storing the details for the work to processed.
+ */
+public interface WorkHandlerFactory<T>
+{
+    /**
+     * Create a new handler for a worker.
+     *
+     * @return the handler.
+     */
+    WorkHandler<T> newInstance();
+}
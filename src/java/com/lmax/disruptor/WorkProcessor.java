@@ -28,6 +28,8 @@ public final class WorkProcessor<T>
     implements EventProcessor
 {
     private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean runLoopActive = false;
+    private volatile boolean retiring = false;
     private final Sequence sequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
     private final RingBuffer<T> ringBuffer;
     private final SequenceBarrier sequenceBarrier;
@@ -72,6 +74,23 @@ public final class WorkProcessor<T>
         sequenceBarrier.alert();
     }
 
+    @Override
+    public boolean isRunning()
+    {
+        return runLoopActive;
+    }
+
+    /**
+     * Ask the processor to leave its run loop once it has finished the event it is working on, before claiming another.
+     * Unlike {@link #halt()} the barrier, which is shared with the other workers of a pool, is not alerted, so an idle
+     * processor only retires after it has handled the event it is waiting for.  Its sequence is then left just below
+     * that event and should no longer be used for gating.
+     */
+    public void retire()
+    {
+        retiring = true;
+    }
+
     /**
      * It is ok to have another thread re-run this method after a halt().
      */
@@ -82,52 +101,66 @@ public final class WorkProcessor<T>
         {
             throw new IllegalStateException("Thread is already running");
         }
-        sequenceBarrier.clearAlert();
+        runLoopActive = true;
+        try
+        {
+            sequenceBarrier.clearAlert();
 
-        notifyStart();
+            notifyStart();
 
-        boolean processedSequence = true;
+            boolean processedSequence = true;
         
-        long nextSequence = sequence.get();
-        T event = null;
-        while (true)
-        {
-            try
+            long nextSequence = sequence.get();
+            T event = null;
+            while (true)
             {
-                if (processedSequence)
+                try
                 {
-                    processedSequence = false;
-                    // workSequence代表当前处理到的序号，该序号被WorkerPool中的共享
-                    nextSequence = workSequence.incrementAndGet();
-                    // 通知ringbuffer更新消费状态
-                    sequence.set(nextSequence - 1L);
-                }
+                    if (processedSequence)
+                    {
+                        if (retiring)
+                        {
+                            break;
+                        }
 
-                // 等待该位置publish
-                sequenceBarrier.waitFor(nextSequence);
-                // 拿到publish到该位置的event
-                event = ringBuffer.get(nextSequence);
-                workHandler.onEvent(event);
+                        processedSequence = false;
+                        // workSequence代表当前处理到的序号，该序号被WorkerPool中的共享
+                        nextSequence = workSequence.incrementAndGet();
+                        // 通知ringbuffer更新消费状态，并唤醒阻塞等待本消费者的下游
+                        sequence.set(nextSequence - 1L);
+                        ringBuffer.signalAllWhenBlocking();
+                    }
 
-                processedSequence = true;
-            }
-            catch (final AlertException ex)
-            {
-                if (!running.get())
+                    // 等待该位置publish
+                    sequenceBarrier.waitFor(nextSequence);
+                    // 拿到publish到该位置的event
+                    event = ringBuffer.get(nextSequence);
+                    workHandler.onEvent(event);
+
+                    processedSequence = true;
+                }
+                catch (final AlertException ex)
                 {
-                    break;
+                    if (!running.get())
+                    {
+                        break;
+                    }
+                }
+                catch (final Throwable ex)
+                {
+                    exceptionHandler.handleEventException(ex, nextSequence, event);
+                    processedSequence = true;
                 }
             }
-            catch (final Throwable ex)
-            {
-                exceptionHandler.handleEventException(ex, nextSequence, event);
-                processedSequence = true;
-            }
-        }
 
-        notifyShutdown();
+            notifyShutdown();
 
-        running.set(false);
+            running.set(false);
+        }
+        finally
+        {
+            runLoopActive = false;
+        }
     }
 
     private void notifyStart()
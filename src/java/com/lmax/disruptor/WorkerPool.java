@@ -16,6 +16,7 @@
 package com.lmax.disruptor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.lmax.disruptor.util.Util;
@@ -116,6 +117,34 @@ public final class WorkerPool<T>
         return sequences;
     }
 
+    /**
+     * Get the {@link WorkProcessor}s of this pool, for running them and tracking their dependencies individually
+     * rather than through {@link #start(Executor)}.
+     *
+     * @return a copy of the array of workers.
+     */
+    public EventProcessor[] getWorkProcessors()
+    {
+        final EventProcessor[] processors = new EventProcessor[workProcessors.length];
+        System.arraycopy(workProcessors, 0, processors, 0, workProcessors.length);
+        return processors;
+    }
+
+    /**
+     * Create a {@link SequenceBarrier} for a downstream stage which must see the events worked on by this pool in their
+     * original sequence order.
+     *
+     * A {@link WorkProcessor} only moves its sequence to just below the sequence it has claimed next, so the minimum of
+     * the worker sequences is exactly the contiguous prefix of completed events.  A {@link BatchEventProcessor} waiting
+     * on this barrier is therefore resequenced without per-slot completion flags or an extra queue.
+     *
+     * @return a {@link SequenceBarrier} gated on the cursor and all the workers of this pool.
+     */
+    public SequenceBarrier newResequencingBarrier()
+    {
+        return ringBuffer.newBarrier(getWorkerSequences());
+    }
+
     /**
      * Start the worker pool processing events in sequence.
      *
@@ -142,15 +171,52 @@ public final class WorkerPool<T>
         return ringBuffer;
     }
 
+    /**
+     * Restart the workers of a halted pool from where they stopped rather than from the cursor, keeping the ring and
+     * its backlog.  The workers must have exited, see {@link WorkProcessor#isRunning()}.
+     *
+     * Work is redelivered at least once: see {@link #resetWorkSequence()}.
+     *
+     * @param executor providing threads for running the workers.
+     * @return the {@link RingBuffer} used for the work queue.
+     * @throws IllegalStateException if the pool is running or its workers have not exited yet.
+     */
+    public RingBuffer<T> restart(final Executor executor)
+    {
+        if (isAnyRunning() || !started.compareAndSet(false, true))
+        {
+            throw new IllegalStateException("WorkerPool cannot be restarted until halted and its workers have exited.");
+        }
+
+        resetWorkSequence();
+        for (WorkProcessor<?> processor : workProcessors)
+        {
+            executor.execute(processor);
+        }
+
+        return ringBuffer;
+    }
+
+    /**
+     * Move the shared work sequence back to the slowest worker before halted workers are run again.  A worker halted
+     * while waiting for the event it had claimed has not worked on it, so the event is claimed again.  Events after it
+     * that other workers completed are claimed again too, giving at least once rather than exactly once delivery.
+     */
+    public void resetWorkSequence()
+    {
+        workSequence.set(Util.getMinimumSequence(getWorkerSequences()));
+    }
+
     /**
      * Wait for the {@link RingBuffer} to drain of published events then halt the workers.
      */
     public void drainAndHalt()
     {
         Sequence[] workerSequences = getWorkerSequences();
+        long parkNanos = Util.MIN_PARK_NANOS;
         while (ringBuffer.getCursor() > Util.getMinimumSequence(workerSequences))
         {
-            Thread.yield();
+            parkNanos = Util.parkWithBackoff(parkNanos);
         }
 
         for (WorkProcessor<?> processor : workProcessors)
@@ -161,6 +227,45 @@ public final class WorkerPool<T>
         started.set(false);
     }
 
+    /**
+     * Wait for the {@link RingBuffer} to drain of published events, halt the workers and wait for them to exit,
+     * all within a timeout.
+     *
+     * @param timeout for draining and stopping the workers.
+     * @param unit of the timeout.
+     * @throws DrainTimeoutException if the timeout elapsed first, reporting the workers that had not drained or
+     * exited.  The workers are halted in either case.
+     */
+    public void drainAndHalt(final long timeout, final TimeUnit unit) throws DrainTimeoutException
+    {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        final Sequence[] workerSequences = getWorkerSequences();
+
+        long parkNanos = Util.MIN_PARK_NANOS;
+        while (ringBuffer.getCursor() > Util.getMinimumSequence(workerSequences))
+        {
+            if (System.nanoTime() - deadline >= 0L)
+            {
+                final DrainTimeoutException ex = new DrainTimeoutException(ringBuffer.getCursor(), workProcessors);
+                halt();
+                throw ex;
+            }
+            parkNanos = Util.parkWithBackoff(parkNanos);
+        }
+
+        halt();
+
+        parkNanos = Util.MIN_PARK_NANOS;
+        while (isAnyRunning())
+        {
+            if (System.nanoTime() - deadline >= 0L)
+            {
+                throw new DrainTimeoutException(ringBuffer.getCursor(), workProcessors);
+            }
+            parkNanos = Util.parkWithBackoff(parkNanos);
+        }
+    }
+
     /**
      * Halt all workers immediately at then end of their current cycle.
      */
@@ -173,4 +278,17 @@ public final class WorkerPool<T>
 
         started.set(false);
     }
+
+    private boolean isAnyRunning()
+    {
+        for (WorkProcessor<?> processor : workProcessors)
+        {
+            if (processor.isRunning())
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
 }
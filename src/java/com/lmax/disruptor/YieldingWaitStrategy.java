@@ -60,8 +60,21 @@ public final class YieldingWaitStrategy implements WaitStrategy
                         final long timeout, final TimeUnit sourceUnit)
         throws AlertException, InterruptedException
     {
-        final long timeoutMs = sourceUnit.toMillis(timeout);
-        final long startTime = System.currentTimeMillis();
+        try
+        {
+            return waitUntil(sequence, cursor, dependents, barrier, System.nanoTime() + sourceUnit.toNanos(timeout));
+        }
+        catch (final TimeoutException ex)
+        {
+            return 0 == dependents.length ? cursor.get() : getMinimumSequence(dependents);
+        }
+    }
+
+    @Override
+    public long waitUntil(final long sequence, final Sequence cursor, final Sequence[] dependents, final SequenceBarrier barrier,
+                          final long deadlineNanos)
+        throws AlertException, InterruptedException, TimeoutException
+    {
         long availableSequence;
         int counter = SPIN_TRIES;
 
@@ -70,12 +83,7 @@ public final class YieldingWaitStrategy implements WaitStrategy
             while ((availableSequence = cursor.get()) < sequence)
             {
                 counter = applyWaitMethod(barrier, counter);
-
-                final long elapsedTime = System.currentTimeMillis() - startTime;
-                if (elapsedTime > timeoutMs)
-                {
-                    break;
-                }
+                checkDeadline(counter, deadlineNanos);
             }
         }
         else
@@ -83,12 +91,7 @@ public final class YieldingWaitStrategy implements WaitStrategy
             while ((availableSequence = getMinimumSequence(dependents)) < sequence)
             {
                 counter = applyWaitMethod(barrier, counter);
-
-                final long elapsedTime = System.currentTimeMillis() - startTime;
-                if (elapsedTime > timeoutMs)
-                {
-                    break;
-                }
+                checkDeadline(counter, deadlineNanos);
             }
         }
 
@@ -117,4 +120,14 @@ public final class YieldingWaitStrategy implements WaitStrategy
 
         return counter;
     }
+
+    private static void checkDeadline(final int counter, final long deadlineNanos)
+        throws TimeoutException
+    {
+        // 自旋阶段不读时钟，让出CPU后每次都检查
+        if (0 == counter && System.nanoTime() - deadlineNanos >= 0L)
+        {
+            throw TimeoutException.INSTANCE;
+        }
+    }
 }
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.affinity;
+
+/**
+ * Binds the calling thread to a CPU.  Implement this to plug in a native affinity library instead of the default
+ * {@link TasksetAffinityHook}.
+ */
+public interface AffinityHook
+{
+    /**
+     * Bind the current thread to a single CPU.
+     *
+     * @param cpu id as used by the operating system.
+     * @return true if the thread was bound, false if binding is not supported or failed.
+     */
+    boolean bindCurrentThread(int cpu);
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.affinity;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshot of the logical CPUs of the machine and the cores, caches and sockets they share.
+ *
+ * On Linux it is read from <code>/sys/devices/system/cpu</code>.  Elsewhere, or when sysfs is not readable,
+ * {@link #read()} falls back to a flat topology of {@link Runtime#availableProcessors()} CPUs that share nothing.
+ */
+public final class CpuTopology
+{
+    private static final String SYSFS_CPU_ROOT = "/sys/devices/system/cpu";
+
+    private final List<Cpu> cpus;
+
+    private CpuTopology(final List<Cpu> cpus)
+    {
+        this.cpus = Collections.unmodifiableList(cpus);
+    }
+
+    /**
+     * Read the topology of this machine.
+     *
+     * @return the topology from sysfs, or a flat topology if it is not available.
+     */
+    public static CpuTopology read()
+    {
+        try
+        {
+            return read(new File(SYSFS_CPU_ROOT));
+        }
+        catch (final IOException ex)
+        {
+            return flat(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Read the topology from a directory laid out like <code>/sys/devices/system/cpu</code>.
+     *
+     * @param root of the cpu directory tree.
+     * @return the topology of the online CPUs.
+     * @throws IOException if the directory tree cannot be read or holds malformed values.
+     */
+    public static CpuTopology read(final File root) throws IOException
+    {
+        final List<Cpu> cpus = new ArrayList<Cpu>();
+        for (int id : readCpuList(new File(root, "online")))
+        {
+            final File cpuDir = new File(root, "cpu" + id);
+            final int socket = readInt(new File(cpuDir, "topology/physical_package_id"), 0);
+            final int core = readInt(new File(cpuDir, "topology/core_id"), id);
+
+            String l2Group = "core:" + socket + ":" + core;
+            String l3Group = "socket:" + socket;
+            final File[] caches = new File(cpuDir, "cache").listFiles();
+            if (null != caches)
+            {
+                for (File cache : caches)
+                {
+                    if (!cache.getName().startsWith("index"))
+                    {
+                        continue;
+                    }
+
+                    final int level = readInt(new File(cache, "level"), 0);
+                    final File shared = new File(cache, "shared_cpu_list");
+                    if (2 == level && shared.canRead())
+                    {
+                        l2Group = "l2:" + readLine(shared);
+                    }
+                    else if (3 == level && shared.canRead())
+                    {
+                        l3Group = "l3:" + readLine(shared);
+                    }
+                }
+            }
+
+            cpus.add(new Cpu(id, socket, core, l2Group, l3Group));
+        }
+
+        if (cpus.isEmpty())
+        {
+            throw new IOException("No online CPUs listed under " + root);
+        }
+
+        return new CpuTopology(cpus);
+    }
+
+    /**
+     * Create a topology of CPUs that are all separate cores on one socket, sharing no caches.
+     *
+     * @param cpuCount number of CPUs.
+     * @return the flat topology.
+     */
+    public static CpuTopology flat(final int cpuCount)
+    {
+        final List<Cpu> cpus = new ArrayList<Cpu>(cpuCount);
+        for (int id = 0; id < cpuCount; id++)
+        {
+            cpus.add(new Cpu(id, 0, id, "core:0:" + id, "socket:0"));
+        }
+
+        return new CpuTopology(cpus);
+    }
+
+    /**
+     * Get the online CPUs in ascending id order.
+     *
+     * @return the CPUs.
+     */
+    public List<Cpu> getCpus()
+    {
+        return cpus;
+    }
+
+    /**
+     * Get a CPU by its id.
+     *
+     * @param id of the CPU as used by the operating system.
+     * @return the CPU or null if it is not online.
+     */
+    public Cpu getCpu(final int id)
+    {
+        for (Cpu cpu : cpus)
+        {
+            if (cpu.getId() == id)
+            {
+                return cpu;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CpuTopology" + cpus;
+    }
+
+    /**
+     * Parse a Linux cpu list such as <code>0-3,8,10-11</code>.
+     *
+     * @param cpuList to parse.
+     * @return the CPU ids in the list.
+     */
+    static List<Integer> parseCpuList(final String cpuList)
+    {
+        final List<Integer> ids = new ArrayList<Integer>();
+        for (String range : cpuList.trim().split(","))
+        {
+            if (0 == range.length())
+            {
+                continue;
+            }
+
+            final int dash = range.indexOf('-');
+            final int first = Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+            final int last = dash < 0 ? first : Integer.parseInt(range.substring(dash + 1));
+            for (int id = first; id <= last; id++)
+            {
+                ids.add(Integer.valueOf(id));
+            }
+        }
+
+        return ids;
+    }
+
+    private static List<Integer> readCpuList(final File file) throws IOException
+    {
+        final String cpuList = readLine(file);
+        try
+        {
+            return parseCpuList(cpuList);
+        }
+        catch (final NumberFormatException ex)
+        {
+            throw new IOException("Malformed cpu list '" + cpuList + "' in " + file, ex);
+        }
+    }
+
+    private static int readInt(final File file, final int defaultValue) throws IOException
+    {
+        if (!file.canRead())
+        {
+            return defaultValue;
+        }
+
+        final String value = readLine(file);
+        try
+        {
+            return Integer.parseInt(value);
+        }
+        catch (final NumberFormatException ex)
+        {
+            throw new IOException("Malformed integer '" + value + "' in " + file, ex);
+        }
+    }
+
+    private static String readLine(final File file) throws IOException
+    {
+        final BufferedReader reader = new BufferedReader(new FileReader(file));
+        try
+        {
+            final String line = reader.readLine();
+            if (null == line)
+            {
+                throw new IOException("Empty file " + file);
+            }
+
+            return line.trim();
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    /**
+     * A logical CPU and the resources it shares with others.
+     */
+    public static final class Cpu
+    {
+        private final int id;
+        private final int socket;
+        private final int core;
+        private final String l2Group;
+        private final String l3Group;
+
+        Cpu(final int id, final int socket, final int core, final String l2Group, final String l3Group)
+        {
+            this.id = id;
+            this.socket = socket;
+            this.core = core;
+            this.l2Group = l2Group;
+            this.l3Group = l3Group;
+        }
+
+        /**
+         * @return id of the CPU as used by the operating system.
+         */
+        public int getId()
+        {
+            return id;
+        }
+
+        /**
+         * @return physical package the CPU is on.
+         */
+        public int getSocket()
+        {
+            return socket;
+        }
+
+        /**
+         * @return physical core within the socket, shared by SMT siblings.
+         */
+        public int getCore()
+        {
+            return core;
+        }
+
+        /**
+         * @return key identifying the CPUs sharing an L2 cache with this one.
+         */
+        public String getL2Group()
+        {
+            return l2Group;
+        }
+
+        /**
+         * @return key identifying the CPUs sharing the last level cache with this one.
+         */
+        public String getL3Group()
+        {
+            return l3Group;
+        }
+
+        /**
+         * @param other CPU.
+         * @return true if both CPUs are hardware threads of the same physical core.
+         */
+        public boolean isSiblingOf(final Cpu other)
+        {
+            return socket == other.socket && core == other.core;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "cpu" + id + "(socket=" + socket + ", core=" + core + ")";
+        }
+    }
+}
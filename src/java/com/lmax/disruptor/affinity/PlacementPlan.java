@@ -0,0 +1,154 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.affinity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * CPU assignment of the stages of a processing graph produced by a {@link PlacementPlanner}.
+ *
+ * The plan is applied by running each stage through {@link #bind(Runnable)}, which binds the thread running it with an
+ * {@link AffinityHook} before the stage starts.  {@link #bind(Executor)} and {@link #newThreadFactory()} do this for
+ * every stage handed to an executor or given its own thread.  A pooled thread keeps its affinity after the stage ends.
+ */
+public final class PlacementPlan
+{
+    private final CpuTopology topology;
+    private final AffinityHook affinityHook;
+    private final List<Object> orderedStages;
+    private final Map<Object, Integer> cpuByStage;
+
+    PlacementPlan(final CpuTopology topology,
+                  final AffinityHook affinityHook,
+                  final List<Object> orderedStages,
+                  final Map<Object, Integer> cpuByStage)
+    {
+        this.topology = topology;
+        this.affinityHook = affinityHook;
+        this.orderedStages = orderedStages;
+        this.cpuByStage = cpuByStage;
+    }
+
+    /**
+     * Get the CPU assigned to a stage.
+     *
+     * @param stage added to the planner.
+     * @return the CPU id, or -1 if the stage is unknown or was left unpinned.
+     */
+    public int getCpu(final Object stage)
+    {
+        final Integer cpu = cpuByStage.get(stage);
+        return null == cpu ? -1 : cpu.intValue();
+    }
+
+    /**
+     * Wrap a stage so the thread running it is bound to its CPU first.
+     *
+     * @param stage to be run.
+     * @return the wrapped stage, or the stage itself if it has no CPU.
+     */
+    public Runnable bind(final Runnable stage)
+    {
+        return bind(stage, stage);
+    }
+
+    /**
+     * Wrap a runnable so the thread running it is bound to the CPU planned for a stage, for runnables that take over
+     * the work of a planned stage.
+     *
+     * @param runnable to be run.
+     * @param stage whose CPU the runnable is bound to.
+     * @return the wrapped runnable, or the runnable itself if the stage has no CPU.
+     */
+    public Runnable bind(final Runnable runnable, final Object stage)
+    {
+        final int cpu = getCpu(stage);
+        if (cpu < 0)
+        {
+            return runnable;
+        }
+
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                affinityHook.bindCurrentThread(cpu);
+                runnable.run();
+            }
+        };
+    }
+
+    /**
+     * Wrap an executor so every planned stage it executes is bound to its CPU.
+     *
+     * @param executor to run the stages.
+     * @return the binding executor.
+     */
+    public Executor bind(final Executor executor)
+    {
+        return new Executor()
+        {
+            @Override
+            public void execute(final Runnable command)
+            {
+                executor.execute(bind(command));
+            }
+        };
+    }
+
+    /**
+     * Create a {@link ThreadFactory} for giving each stage its own thread, as in
+     * <code>factory.newThread(eventProcessor).start()</code>.  Threads for planned stages bind themselves on start.
+     *
+     * @return the thread factory.
+     */
+    public ThreadFactory newThreadFactory()
+    {
+        return new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(final Runnable runnable)
+            {
+                final int cpu = getCpu(runnable);
+                final Thread thread = new Thread(bind(runnable));
+                if (cpu >= 0)
+                {
+                    thread.setName("disruptor-cpu" + cpu + "-" + thread.getId());
+                }
+
+                return thread;
+            }
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder sb = new StringBuilder("PlacementPlan{");
+        for (Object stage : orderedStages)
+        {
+            final int cpu = getCpu(stage);
+            sb.append("\n  ").append(stage).append(" -> ");
+            sb.append(cpu < 0 ? "unpinned" : String.valueOf(topology.getCpu(cpu)));
+        }
+
+        return sb.append("\n}").toString();
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.affinity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assigns the stages of a processing graph to CPUs of a {@link CpuTopology}.
+ *
+ * Stages are placed in dependency order.  Each stage goes to a free physical core as close as possible to its first
+ * upstream stage, preferring one sharing the L2 cache, then the last level cache, then the socket.  A stage without
+ * upstream is placed close to the previously placed stage, so a publisher added first lands next to the consumers.
+ * Spinning stages get a core to themselves and their SMT siblings are left idle; other stages fall back to a sibling
+ * of a non spinning stage or of a reserved CPU once free cores run out, and are left unpinned when no CPU is left.
+ * Reserved CPUs themselves are never assigned.
+ *
+ * <pre><code> PlacementPlanner planner = new PlacementPlanner(CpuTopology.read()).reserve(0);
+ * PlacementPlan plan = disruptor.planPlacement(planner, true);
+ * RingBuffer ringBuffer = disruptor.start();</code></pre>
+ */
+public final class PlacementPlanner
+{
+    private final CpuTopology topology;
+    private final AffinityHook affinityHook;
+    private final Set<Integer> reservedCpus = new HashSet<Integer>();
+    private final List<Stage> stages = new ArrayList<Stage>();
+    private final Map<Object, Stage> stageByKey = new IdentityHashMap<Object, Stage>();
+
+    /**
+     * Construct a planner whose plans bind threads with a {@link TasksetAffinityHook}.
+     *
+     * @param topology of the machine.
+     */
+    public PlacementPlanner(final CpuTopology topology)
+    {
+        this(topology, new TasksetAffinityHook());
+    }
+
+    /**
+     * Construct a planner.
+     *
+     * @param topology of the machine.
+     * @param affinityHook used by plans to bind threads.
+     */
+    public PlacementPlanner(final CpuTopology topology, final AffinityHook affinityHook)
+    {
+        this.topology = topology;
+        this.affinityHook = affinityHook;
+    }
+
+    /**
+     * Keep CPUs out of the plan, for example those serving interrupts or the operating system.
+     *
+     * @param cpus ids not to assign.
+     * @return this planner.
+     */
+    public PlacementPlanner reserve(final int... cpus)
+    {
+        for (int cpu : cpus)
+        {
+            reservedCpus.add(Integer.valueOf(cpu));
+        }
+
+        return this;
+    }
+
+    /**
+     * Add a stage to be placed.  Stages are compared by identity.
+     *
+     * @param stage typically an {@link com.lmax.disruptor.EventProcessor} or the {@link Runnable} of a publisher.
+     * @param spinning true if the stage busy spins and must not share a physical core.
+     * @param upstream stages whose output this stage consumes, unknown stages are ignored.
+     * @return this planner.
+     */
+    public PlacementPlanner addStage(final Object stage, final boolean spinning, final Object... upstream)
+    {
+        if (stageByKey.containsKey(stage))
+        {
+            throw new IllegalArgumentException("Stage already added: " + stage);
+        }
+
+        final Stage added = new Stage(stage, spinning, upstream);
+        stages.add(added);
+        stageByKey.put(stage, added);
+
+        return this;
+    }
+
+    /**
+     * Place the stages added so far.
+     *
+     * @return the plan.
+     */
+    public PlacementPlan plan()
+    {
+        final Map<Object, Integer> cpuByStage = new IdentityHashMap<Object, Integer>();
+        final List<Object> orderedStages = new ArrayList<Object>(stages.size());
+        final Set<Integer> usedCpus = new HashSet<Integer>(reservedCpus);
+        final Map<String, Integer> usersByCore = new HashMap<String, Integer>();
+        final Set<String> exclusiveCores = new HashSet<String>();
+        for (CpuTopology.Cpu cpu : topology.getCpus())
+        {
+            if (reservedCpus.contains(Integer.valueOf(cpu.getId())))
+            {
+                addUser(usersByCore, coreKey(cpu));
+            }
+        }
+
+        CpuTopology.Cpu previous = null;
+        for (Stage stage : inDependencyOrder())
+        {
+            final CpuTopology.Cpu anchor = findAnchor(stage, cpuByStage, previous);
+
+            CpuTopology.Cpu best = null;
+            int bestScore = Integer.MAX_VALUE;
+            for (CpuTopology.Cpu cpu : topology.getCpus())
+            {
+                final String core = coreKey(cpu);
+                final int users = usersByCore.containsKey(core) ? usersByCore.get(core).intValue() : 0;
+                if (usedCpus.contains(Integer.valueOf(cpu.getId())) || exclusiveCores.contains(core) ||
+                    (stage.spinning && 0 != users))
+                {
+                    continue;
+                }
+
+                // 优先整颗空闲的物理核，其次离上游最近
+                final int score = (0 == users ? 0 : 4) + distance(anchor, cpu);
+                if (score < bestScore)
+                {
+                    best = cpu;
+                    bestScore = score;
+                }
+            }
+
+            orderedStages.add(stage.key);
+            if (null == best)
+            {
+                cpuByStage.put(stage.key, Integer.valueOf(-1));
+                continue;
+            }
+
+            final String core = coreKey(best);
+            addUser(usersByCore, core);
+            usedCpus.add(Integer.valueOf(best.getId()));
+            if (stage.spinning)
+            {
+                exclusiveCores.add(core);
+            }
+
+            cpuByStage.put(stage.key, Integer.valueOf(best.getId()));
+            previous = best;
+        }
+
+        return new PlacementPlan(topology, affinityHook, orderedStages, cpuByStage);
+    }
+
+    private List<Stage> inDependencyOrder()
+    {
+        final List<Stage> ordered = new ArrayList<Stage>(stages.size());
+        final Set<Stage> placed = new HashSet<Stage>();
+        boolean progress = true;
+        while (progress)
+        {
+            progress = false;
+            for (Stage stage : stages)
+            {
+                if (!placed.contains(stage) && allUpstreamPlaced(stage, placed))
+                {
+                    ordered.add(stage);
+                    placed.add(stage);
+                    progress = true;
+                }
+            }
+        }
+
+        // 存在环时剩余的按添加顺序放置
+        for (Stage stage : stages)
+        {
+            if (!placed.contains(stage))
+            {
+                ordered.add(stage);
+            }
+        }
+
+        return ordered;
+    }
+
+    private boolean allUpstreamPlaced(final Stage stage, final Set<Stage> placed)
+    {
+        for (Object upstream : stage.upstream)
+        {
+            final Stage upstreamStage = stageByKey.get(upstream);
+            if (null != upstreamStage && !placed.contains(upstreamStage))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private CpuTopology.Cpu findAnchor(final Stage stage, final Map<Object, Integer> cpuByStage, final CpuTopology.Cpu previous)
+    {
+        for (Object upstream : stage.upstream)
+        {
+            final Integer cpu = cpuByStage.get(upstream);
+            if (null != cpu && cpu.intValue() >= 0)
+            {
+                return topology.getCpu(cpu.intValue());
+            }
+        }
+
+        return previous;
+    }
+
+    private static int distance(final CpuTopology.Cpu anchor, final CpuTopology.Cpu cpu)
+    {
+        if (null == anchor || anchor.getL2Group().equals(cpu.getL2Group()))
+        {
+            return 0;
+        }
+        else if (anchor.getL3Group().equals(cpu.getL3Group()))
+        {
+            return 1;
+        }
+        else if (anchor.getSocket() == cpu.getSocket())
+        {
+            return 2;
+        }
+
+        return 3;
+    }
+
+    private static void addUser(final Map<String, Integer> usersByCore, final String core)
+    {
+        final Integer users = usersByCore.get(core);
+        usersByCore.put(core, Integer.valueOf(null == users ? 1 : users.intValue() + 1));
+    }
+
+    private static String coreKey(final CpuTopology.Cpu cpu)
+    {
+        return cpu.getSocket() + ":" + cpu.getCore();
+    }
+
+    private static final class Stage
+    {
+        private final Object key;
+        private final boolean spinning;
+        private final Object[] upstream;
+
+        private Stage(final Object key, final boolean spinning, final Object[] upstream)
+        {
+            this.key = key;
+            this.spinning = spinning;
+            this.upstream = upstream;
+        }
+    }
+}
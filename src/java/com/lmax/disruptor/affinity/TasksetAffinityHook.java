@@ -0,0 +1,94 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.affinity;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link AffinityHook} for Linux that runs <code>taskset -p -c cpu tid</code> on the calling thread.
+ *
+ * The kernel thread id is the first field of <code>/proc/thread-self/stat</code>, available since Linux 3.17.  The
+ * link is not resolved through {@link java.io.File#getCanonicalFile()}, whose cache could hand every thread binding
+ * within its expiry the id of the first one.  Binding forks a process, so it should only be done once when a thread
+ * starts.
+ */
+public final class TasksetAffinityHook implements AffinityHook
+{
+    private static final String THREAD_SELF_STAT = "/proc/thread-self/stat";
+
+    @Override
+    public boolean bindCurrentThread(final int cpu)
+    {
+        try
+        {
+            final String threadId = readThreadId();
+            final Process process = new ProcessBuilder("taskset", "-p", "-c", String.valueOf(cpu), threadId)
+                .redirectErrorStream(true)
+                .start();
+
+            drain(process.getInputStream());
+            return 0 == process.waitFor();
+        }
+        catch (final IOException ex)
+        {
+            return false;
+        }
+        catch (final InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String readThreadId() throws IOException
+    {
+        final BufferedReader reader = new BufferedReader(new FileReader(THREAD_SELF_STAT));
+        try
+        {
+            final String line = reader.readLine();
+            final int end = null == line ? -1 : line.indexOf(' ');
+            if (end <= 0)
+            {
+                throw new IOException("Malformed " + THREAD_SELF_STAT);
+            }
+
+            return line.substring(0, end);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    private static void drain(final InputStream in) throws IOException
+    {
+        try
+        {
+            final byte[] buffer = new byte[256];
+            while (-1 != in.read(buffer))
+            {
+                // discard the report of the old and new affinity
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
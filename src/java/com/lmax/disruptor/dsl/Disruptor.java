@@ -17,9 +17,19 @@ package com.lmax.disruptor.dsl;
 
 import com.baidu.rigel.profiler.Profiler;
 import com.lmax.disruptor.*;
+import com.lmax.disruptor.affinity.PlacementPlan;
+import com.lmax.disruptor.affinity.PlacementPlanner;
 import com.lmax.disruptor.util.Util;
-
+import com.lmax.disruptor.util.VirtualThreadExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -40,11 +50,16 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class Disruptor<T>
 {
     private final RingBuffer<T> ringBuffer;
-    private final Executor executor;
+    private Executor executor;
     private final EventProcessorRepository<T> eventProcessorRepository = new EventProcessorRepository<T>();
     private final AtomicBoolean started = new AtomicBoolean(false);
     private final EventPublisher<T> eventPublisher;
     private ExceptionHandler exceptionHandler;
+    private PlacementPlan placementPlan;
+    private final List<WorkerPool<T>> workerPools = new ArrayList<WorkerPool<T>>();
+    private boolean fusionEnabled = false;
+    private final Map<EventProcessor, EventProcessor> fusedEventProcessorByHead = new IdentityHashMap<EventProcessor, EventProcessor>();
+    private final Map<EventProcessor, EventProcessor> fusedEventProcessorByStage = new IdentityHashMap<EventProcessor, EventProcessor>();
 
     /**
      * Create a new Disruptor.
@@ -73,6 +88,22 @@ public class Disruptor<T>
         this(new RingBuffer<T>(eventFactory, claimStrategy, waitStrategy), executor);
     }
 
+    /**
+     * Create a new Disruptor whose event processors each run on their own virtual thread, falling back to platform
+     * threads on JVMs without them.  Processors wait with a {@link TargetedWakeupWaitStrategy}, which parks through
+     * {@link java.util.concurrent.locks.LockSupport} and so releases the carrier thread, making hundreds of mostly idle
+     * processors cheap.  Handlers may call blocking APIs.
+     *
+     * @param eventFactory   the factory to create events in the ring buffer.
+     * @param claimStrategy  the claim strategy to use for the ring buffer.
+     * @param <T> the type of event used.
+     * @return the new Disruptor.
+     */
+    public static <T> Disruptor<T> onVirtualThreads(final EventFactory<T> eventFactory, final ClaimStrategy claimStrategy)
+    {
+        return new Disruptor<T>(eventFactory, new VirtualThreadExecutor(), claimStrategy, new TargetedWakeupWaitStrategy());
+    }
+
     private Disruptor(final RingBuffer<T> ringBuffer, final Executor executor)
     {
         this.ringBuffer = ringBuffer;
@@ -98,10 +129,46 @@ public class Disruptor<T>
         return createEventProcessors(new EventProcessor[0], handlers);
     }
 
+    /**
+     * Set up event handlers to handle events from the ring buffer, waiting for events with their own
+     * {@link WaitStrategy} instead of the one of the ring buffer.  This lets latency critical handlers spin
+     * while others on the same ring block or sleep.
+     *
+     * <pre><code>dw.handleEventsWith(new BusySpinWaitStrategy(), matcher).then(new SleepingWaitStrategy(), archiver);</code></pre>
+     *
+     * @param waitStrategy the wait strategy used by the handlers to wait for events.
+     * @param handlers the event handlers that will process events.
+     * @return a {@link EventHandlerGroup} that can be used to chain dependencies.
+     */
+    @SuppressWarnings("varargs")
+    public EventHandlerGroup<T> handleEventsWith(final WaitStrategy waitStrategy, final EventHandler<T>... handlers)
+    {
+        return createEventProcessors(new EventProcessor[0], waitStrategy, handlers);
+    }
+
+    /**
+     * Set up a worker pool to handle events from the ring buffer.  Each event is processed by exactly one of the work
+     * handlers, which run on their own threads.  The workers are gated on and can be depended on like event handlers:
+     * a stage after the pool only sees an event once every event before it has also been worked on.
+     *
+     * <pre><code>dw.handleEventsWithWorkerPool(W1, W2, W3).then(B);</code></pre>
+     *
+     * @param workHandlers the work handlers that will process events.
+     * @return a {@link EventHandlerGroup} that can be used to chain dependencies.
+     */
+    @SuppressWarnings("varargs")
+    public EventHandlerGroup<T> handleEventsWithWorkerPool(final WorkHandler<T>... workHandlers)
+    {
+        return createWorkerPool(new EventProcessor[0], workHandlers);
+    }
+
     /**
      * Set up custom event processors to handle events from the ring buffer. The Disruptor will
      * automatically start this processors when {@link #start()} is called.
      *
+     * <p>The processors are recorded as waiting on the cursor only.  A processor waiting on other processors should be
+     * set up with {@link EventHandlerGroup#then(EventProcessor...)} so the dependency is recorded.</p>
+     *
      * @param processors the event processors that will process events.
      * @return a {@link EventHandlerGroup} that can be used to chain dependencies.
      */
@@ -137,6 +204,29 @@ public class Disruptor<T>
         return new ExceptionHandlerSetting<T>(eventHandler, eventProcessorRepository);
     }
 
+    /**
+     * Replace an event handler without stopping the disruptor, for example to deploy a new rule.  The replacement takes
+     * over the processor of the current handler at its next batch boundary and continues from the same sequence, so
+     * publishers and other handlers keep running and dependencies on the handler are kept.  {@link LifecycleAware}
+     * handlers are shut down and started on the processor thread.  Later calls refer to the handler by the replacement.
+     *
+     * @param handler the event handler, previously set up with {@link #handleEventsWith(EventHandler[])}, to replace.
+     * @param replacementHandler the event handler to process events from now on.
+     * @see BatchEventProcessor#swapEventHandler(EventHandler)
+     */
+    @SuppressWarnings("unchecked")
+    public void swapHandler(final EventHandler<T> handler, final EventHandler<T> replacementHandler)
+    {
+        if (null == replacementHandler)
+        {
+            throw new NullPointerException();
+        }
+
+        final EventProcessor eventProcessor = eventProcessorRepository.getEventProcessorFor(handler);
+        eventProcessorRepository.replaceHandler(handler, replacementHandler);
+        ((BatchEventProcessor<T>)eventProcessor).swapEventHandler(replacementHandler);
+    }
+
     /**
      * Create a group of event handlers to be used as a dependency.
      * For example if the handler <code>A</code> must process events before handler <code>B</code>:
@@ -194,21 +284,145 @@ public class Disruptor<T>
      * This method must only be called once after all event processors have been added.
      *
      * @return the configured ring buffer.
+     * @throws IllegalStateException if the topology is invalid, see {@link TopologyGraph#validate()}.
      */
     public RingBuffer<T> start()
     {
+        getTopology().validate();
+
         EventProcessor[] gatingProcessors = eventProcessorRepository.getLastEventProcessorsInChain();
         ringBuffer.setGatingSequences(Util.getSequencesFor(gatingProcessors));
 
         checkOnlyStartedOnce();
-        for (EventProcessorInfo<T> eventProcessorInfo : eventProcessorRepository)
+        if (fusionEnabled)
+        {
+            fuseLinearChains();
+        }
+
+        executeEventProcessors();
+
+        return ringBuffer;
+    }
+
+    /**
+     * Get the dependency graph of the event processors set up so far, to check or export it.  {@link #start()}
+     * refuses to start an invalid one.
+     *
+     * @return the graph, gated on the processors at the end of each chain as the ring buffer will be.
+     */
+    public TopologyGraph getTopology()
+    {
+        return new TopologyGraph(eventProcessorRepository, eventProcessorRepository.getLastEventProcessorsInChain());
+    }
+
+    /**
+     * Halt the event processors and wait for them to exit, keeping the ring buffer, its pre-allocated events and the
+     * sequence of every processor.  Publishers can keep publishing until the ring buffer is full.  The processors
+     * carry on from where they stopped on {@link #resume()}.
+     *
+     * @param timeout to wait for the processors to exit.
+     * @param unit of the timeout.
+     * @return true if every processor has exited, false if some were still running when the timeout elapsed.
+     */
+    public boolean pause(final long timeout, final TimeUnit unit)
+    {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        halt();
+
+        long parkNanos = Util.MIN_PARK_NANOS;
+        while (isAnyRunning())
+        {
+            if (System.nanoTime() - deadline >= 0L)
+            {
+                return false;
+            }
+            parkNanos = Util.parkWithBackoff(parkNanos);
+        }
+
+        return true;
+    }
+
+    /**
+     * Run the event processors again on the same executor after they were stopped with {@link #pause(long, TimeUnit)},
+     * {@link #halt()} or a shutdown.
+     *
+     * @return the ring buffer used by this Disruptor.
+     * @see #resume(Executor)
+     */
+    public RingBuffer<T> resume()
+    {
+        return resume(executor);
+    }
+
+    /**
+     * Run the event processors again after they were stopped with {@link #pause(long, TimeUnit)}, {@link #halt()} or a
+     * shutdown, for example once a failed dependency has recovered.  Each processor continues from its own sequence, so
+     * nothing published meanwhile is lost and the ring buffer stays warm.  Worker pool events that had been claimed but
+     * not worked on are claimed again, see {@link WorkerPool#resetWorkSequence()}.
+     *
+     * @param executor to run the processors on from now on, which can replace a shut down one.
+     * @return the ring buffer used by this Disruptor.
+     * @throws IllegalStateException if the disruptor was not started or a processor has not exited yet.
+     */
+    public RingBuffer<T> resume(final Executor executor)
+    {
+        if (!started.get())
+        {
+            throw new IllegalStateException("Disruptor.start() must be called before resuming.");
+        }
+        if (isAnyRunning())
+        {
+            throw new IllegalStateException("Event processors must have exited before resuming.");
+        }
+
+        this.executor = executor;
+        for (WorkerPool<T> workerPool : workerPools)
         {
-            executor.execute(eventProcessorInfo.getEventProcessor());
+            workerPool.resetWorkSequence();
         }
+        executeEventProcessors();
 
         return ringBuffer;
     }
 
+    /**
+     * Run linear chains of event handlers, such as <code>handleEventsWith(A).then(B).then(C)</code>, on one thread
+     * each when the disruptor is started.  A chain is fused while each handler is the only one depending on the
+     * handler before it, so fan-out and fan-in points start a new chain.  The handlers of a chain are called in order
+     * for each batch by a {@link FusedEventProcessor}, which saves a thread and a cross core handoff per handler, and
+     * their sequences are still advanced so barriers over any of them keep working.  Handlers using a timeout or a
+     * {@link BatchRewindStrategy} are left on their own processors.
+     *
+     * <p>Worth it when the handlers are cheap compared to the cost of passing an event between threads.</p>
+     */
+    public void enableFusion()
+    {
+        checkNotStarted();
+        fusionEnabled = true;
+    }
+
+    /**
+     * Plan the CPU placement of the event processors set up so far, following their dependencies.  When the
+     * disruptor is started each processor binds the thread running it to its planned CPU.  Stages added to the
+     * planner beforehand, such as a publisher, are placed first so the processors land close to them.
+     *
+     * @param planner to place the processors with.
+     * @param spinning true if the processors busy spin and must not share a physical core.
+     * @return the plan, which can also be applied to other threads.
+     */
+    public PlacementPlan planPlacement(final PlacementPlanner planner, final boolean spinning)
+    {
+        checkNotStarted();
+
+        for (EventProcessorInfo<T> eventProcessorInfo : eventProcessorRepository)
+        {
+            planner.addStage(eventProcessorInfo.getEventProcessor(), spinning, (Object[])eventProcessorInfo.getDependencies());
+        }
+
+        placementPlan = planner.plan();
+        return placementPlan;
+    }
+
     /**
      * Calls {@link com.lmax.disruptor.EventProcessor#halt()} on all of the event processors created via this disruptor.
      */
@@ -218,6 +432,10 @@ public class Disruptor<T>
         {
             eventprocessorInfo.getEventProcessor().halt();
         }
+        for (EventProcessor fusedEventProcessor : fusedEventProcessorByHead.values())
+        {
+            fusedEventProcessor.halt();
+        }
     }
 
     /**
@@ -230,11 +448,53 @@ public class Disruptor<T>
      */
     public void shutdown()
     {
+        long parkNanos = Util.MIN_PARK_NANOS;
+        while (hasBacklog())
+        {
+            parkNanos = Util.parkWithBackoff(parkNanos);
+        }
+        halt();
+    }
+
+    /**
+     * Waits until all events currently in the disruptor have been processed by all event processors, then halts the
+     * processors and waits for their run loops to exit, all within a timeout.  Publishing to the ring buffer must have
+     * stopped before calling this method.  The wait parks with an exponential backoff rather than spinning.
+     *
+     * <p>This method will not shutdown the executor.</p>
+     *
+     * @param timeout for draining and stopping the processors.
+     * @param unit of the timeout.
+     * @throws DrainTimeoutException if the timeout elapsed first, reporting the processors that had not drained or
+     * exited.  The processors are halted in either case.
+     */
+    public void shutdown(final long timeout, final TimeUnit unit) throws DrainTimeoutException
+    {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        long parkNanos = Util.MIN_PARK_NANOS;
         while (hasBacklog())
         {
-            // Busy spin
+            if (System.nanoTime() - deadline >= 0L)
+            {
+                final DrainTimeoutException ex = new DrainTimeoutException(ringBuffer.getCursor(), getEventProcessors());
+                halt();
+                throw ex;
+            }
+            parkNanos = Util.parkWithBackoff(parkNanos);
         }
+
         halt();
+
+        parkNanos = Util.MIN_PARK_NANOS;
+        while (isAnyRunning())
+        {
+            if (System.nanoTime() - deadline >= 0L)
+            {
+                throw new DrainTimeoutException(ringBuffer.getCursor(), getEventProcessors());
+            }
+            parkNanos = Util.parkWithBackoff(parkNanos);
+        }
     }
 
     /**
@@ -260,12 +520,124 @@ public class Disruptor<T>
         return eventProcessorRepository.getBarrierFor(handler);
     }
 
+    private EventProcessor[] getEventProcessors()
+    {
+        final List<EventProcessor> eventProcessors = new ArrayList<EventProcessor>();
+        for (EventProcessorInfo<T> eventProcessorInfo : eventProcessorRepository)
+        {
+            eventProcessors.add(eventProcessorInfo.getEventProcessor());
+        }
+        eventProcessors.addAll(fusedEventProcessorByHead.values());
+
+        return eventProcessors.toArray(new EventProcessor[eventProcessors.size()]);
+    }
+
+    private boolean isAnyRunning()
+    {
+        for (EventProcessorInfo<T> eventProcessorInfo : eventProcessorRepository)
+        {
+            if (eventProcessorInfo.getEventProcessor().isRunning())
+            {
+                return true;
+            }
+        }
+        for (EventProcessor fusedEventProcessor : fusedEventProcessorByHead.values())
+        {
+            if (fusedEventProcessor.isRunning())
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void executeEventProcessors()
+    {
+        for (EventProcessorInfo<T> eventProcessorInfo : eventProcessorRepository)
+        {
+            final EventProcessor eventProcessor = eventProcessorInfo.getEventProcessor();
+            if (!fusedEventProcessorByStage.containsKey(eventProcessor))
+            {
+                execute(eventProcessor, eventProcessor);
+            }
+            else if (fusedEventProcessorByHead.containsKey(eventProcessor))
+            {
+                execute(fusedEventProcessorByHead.get(eventProcessor), eventProcessor);
+            }
+        }
+    }
+
+    private void execute(final EventProcessor eventProcessor, final EventProcessor plannedStage)
+    {
+        executor.execute(null == placementPlan ? eventProcessor : placementPlan.bind(eventProcessor, plannedStage));
+    }
+
+    private void fuseLinearChains()
+    {
+        final Map<EventProcessor, Integer> consumerCounts = new IdentityHashMap<EventProcessor, Integer>();
+        final Set<EventProcessor> fusibleStages = Collections.newSetFromMap(new IdentityHashMap<EventProcessor, Boolean>());
+        for (EventProcessorInfo<T> eventProcessorInfo : eventProcessorRepository)
+        {
+            if (null != eventProcessorInfo.getHandler() && FusedEventProcessor.isFusible(eventProcessorInfo.getEventProcessor()))
+            {
+                fusibleStages.add(eventProcessorInfo.getEventProcessor());
+            }
+            for (EventProcessor dependency : eventProcessorInfo.getDependencies())
+            {
+                final Integer count = consumerCounts.get(dependency);
+                consumerCounts.put(dependency, Integer.valueOf(null == count ? 1 : count.intValue() + 1));
+            }
+        }
+
+        // 后继表：只有当前驱仅被一个处理器依赖且两者都可融合时才串成一条链
+        final Map<EventProcessor, EventProcessor> nextStageByStage = new IdentityHashMap<EventProcessor, EventProcessor>();
+        for (EventProcessorInfo<T> eventProcessorInfo : eventProcessorRepository)
+        {
+            final EventProcessor eventProcessor = eventProcessorInfo.getEventProcessor();
+            final EventProcessor[] dependencies = eventProcessorInfo.getDependencies();
+            if (fusibleStages.contains(eventProcessor) && 1 == dependencies.length &&
+                fusibleStages.contains(dependencies[0]) && 1 == consumerCounts.get(dependencies[0]).intValue())
+            {
+                nextStageByStage.put(dependencies[0], eventProcessor);
+            }
+        }
+
+        for (EventProcessor head : nextStageByStage.keySet())
+        {
+            if (nextStageByStage.containsValue(head))
+            {
+                continue;
+            }
+
+            final List<BatchEventProcessor<T>> stages = new ArrayList<BatchEventProcessor<T>>();
+            for (EventProcessor stage = head; null != stage; stage = nextStageByStage.get(stage))
+            {
+                stages.add(asBatchEventProcessor(stage));
+            }
+
+            final FusedEventProcessor<T> fusedEventProcessor = new FusedEventProcessor<T>(ringBuffer, stages);
+            fusedEventProcessorByHead.put(head, fusedEventProcessor);
+            for (BatchEventProcessor<T> stage : stages)
+            {
+                fusedEventProcessorByStage.put(stage, fusedEventProcessor);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private BatchEventProcessor<T> asBatchEventProcessor(final EventProcessor eventProcessor)
+    {
+        return (BatchEventProcessor<T>)eventProcessor;
+    }
+
     private boolean hasBacklog()
     {
         final long cursor = ringBuffer.getCursor();
         for (EventProcessor consumer : eventProcessorRepository.getLastEventProcessorsInChain())
         {
-            if (cursor != consumer.getSequence().get())
+            // 工作者预先领取序号，其sequence可能超过cursor
+            if (consumer.getSequence().get() < cursor)
             {
                 return true;
             }
@@ -275,12 +647,21 @@ public class Disruptor<T>
 
     EventHandlerGroup<T> createEventProcessors(final EventProcessor[] barrierEventProcessors,
                                                final EventHandler<T>[] eventHandlers)
+    {
+        return createEventProcessors(barrierEventProcessors, null, eventHandlers);
+    }
+
+    EventHandlerGroup<T> createEventProcessors(final EventProcessor[] barrierEventProcessors,
+                                               final WaitStrategy waitStrategy,
+                                               final EventHandler<T>[] eventHandlers)
     {
     	// All event handlers must be added before calling starts.
         checkNotStarted();
 
         final EventProcessor[] createdEventProcessors = new EventProcessor[eventHandlers.length];
-        final SequenceBarrier barrier = ringBuffer.newBarrier(Util.getSequencesFor(barrierEventProcessors));
+        final Sequence[] barrierSequences = Util.getSequencesFor(barrierEventProcessors);
+        final SequenceBarrier barrier = null == waitStrategy ?
+            ringBuffer.newBarrier(barrierSequences) : ringBuffer.newBarrier(waitStrategy, barrierSequences);
 
         for (int i = 0, eventHandlersLength = eventHandlers.length; i < eventHandlersLength; i++)
         {
@@ -293,7 +674,7 @@ public class Disruptor<T>
                 batchEventProcessor.setExceptionHandler(exceptionHandler);
             }
 
-            eventProcessorRepository.add(batchEventProcessor, eventHandler, barrier);
+            eventProcessorRepository.add(batchEventProcessor, eventHandler, barrier, barrierEventProcessors);
             createdEventProcessors[i] = batchEventProcessor;
         }
 
@@ -305,6 +686,50 @@ public class Disruptor<T>
         return new EventHandlerGroup<T>(this, eventProcessorRepository, createdEventProcessors);
     }
 
+    EventHandlerGroup<T> addEventProcessors(final EventProcessor[] barrierEventProcessors,
+                                            final EventProcessor[] processors)
+    {
+        checkNotStarted();
+
+        for (EventProcessor processor : processors)
+        {
+            eventProcessorRepository.add(processor, null, barrierEventProcessors);
+        }
+
+        if (processors.length > 0)
+        {
+            eventProcessorRepository.unMarkEventProcessorsAsEndOfChain(barrierEventProcessors);
+        }
+
+        return new EventHandlerGroup<T>(this, eventProcessorRepository, processors);
+    }
+
+    EventHandlerGroup<T> createWorkerPool(final EventProcessor[] barrierEventProcessors,
+                                          final WorkHandler<T>[] workHandlers)
+    {
+        checkNotStarted();
+
+        final SequenceBarrier barrier = ringBuffer.newBarrier(Util.getSequencesFor(barrierEventProcessors));
+        final WorkerPool<T> workerPool = new WorkerPool<T>(ringBuffer, barrier,
+                                                           null == exceptionHandler ? new FatalExceptionHandler() : exceptionHandler,
+                                                           workHandlers);
+        final EventProcessor[] workProcessors = workerPool.getWorkProcessors();
+        workerPools.add(workerPool);
+
+        // WorkerPool按workHandlers的顺序创建WorkProcessor
+        for (int i = 0; i < workProcessors.length; i++)
+        {
+            eventProcessorRepository.add(workProcessors[i], workHandlers[i], barrier, barrierEventProcessors);
+        }
+
+        if (workProcessors.length > 0)
+        {
+            eventProcessorRepository.unMarkEventProcessorsAsEndOfChain(barrierEventProcessors);
+        }
+
+        return new EventHandlerGroup<T>(this, eventProcessorRepository, workProcessors);
+    }
+
     private void checkNotStarted()
     {
         if (started.get())
@@ -0,0 +1,501 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+import com.lmax.disruptor.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+
+/**
+ * Builds a {@link Disruptor} from a properties file, so the ring buffer size, strategies and topology can be changed,
+ * for example to compare wait strategies, without rebuilding.
+ *
+ * <pre><code> ringBufferSize=1024
+ * claimStrategy=single
+ * waitStrategy=blocking
+ * fusion=false
+ *
+ * handler.journal.class=com.example.JournalHandler
+ * handler.pricing.class=com.example.PricingHandler
+ * handler.pricing.after=journal
+ * handler.pricing.waitStrategy=busy-spin
+ * handler.pricing.maxBatchSize=64
+ *
+ * pool.risk.class=com.example.RiskWorker
+ * pool.risk.workers=4
+ * pool.risk.after=pricing</code></pre>
+ *
+ * <p>A claim strategy is one of <code>single</code>, <code>multi</code>, <code>multi-low-contention</code> or the name of
+ * a {@link ClaimStrategy} class with a constructor taking the buffer size.  A wait strategy is one of
+ * <code>blocking</code>, <code>lite-blocking</code>, <code>sleeping</code>, <code>yielding</code>, <code>busy-spin</code>,
+ * <code>targeted-wakeup</code> or the name of a {@link WaitStrategy} class with a default constructor.</p>
+ *
+ * <p>Each <code>handler.&lt;name&gt;</code> is an {@link EventHandler} and each <code>pool.&lt;name&gt;</code> a worker
+ * pool of {@link WorkHandler}s, one instance per worker, created from their class by its default constructor.
+ * <code>after</code> lists the handlers and pools a stage depends on.  Handlers needing constructor arguments are given
+ * with {@link #setEventHandler(String, EventHandler)} or {@link #setWorkHandlers(String, WorkHandler[])} instead of a
+ * class.  Unknown keys are rejected so a misspelt setting does not silently fall back to its default.</p>
+ *
+ * @param <T> the type of event used.
+ */
+public final class DisruptorConfiguration<T>
+{
+    private static final String HANDLER_PREFIX = "handler.";
+    private static final String POOL_PREFIX = "pool.";
+
+    private final Properties properties;
+    private final Map<String, EventHandler<T>> eventHandlerByName = new HashMap<String, EventHandler<T>>();
+    private Map<String, EventHandler<T>> builtEventHandlerByName = new HashMap<String, EventHandler<T>>();
+    private final Map<String, WorkHandler<T>[]> workHandlersByName = new HashMap<String, WorkHandler<T>[]>();
+
+    /**
+     * @param properties describing the disruptor.
+     */
+    public DisruptorConfiguration(final Properties properties)
+    {
+        this.properties = properties;
+    }
+
+    /**
+     * Read a configuration from a properties file.
+     *
+     * @param file to read.
+     * @param <T> the type of event used.
+     * @return the configuration.
+     * @throws IOException if the file can not be read.
+     */
+    public static <T> DisruptorConfiguration<T> fromFile(final File file) throws IOException
+    {
+        final Properties properties = new Properties();
+        final InputStream in = new FileInputStream(file);
+        try
+        {
+            properties.load(in);
+        }
+        finally
+        {
+            in.close();
+        }
+
+        return new DisruptorConfiguration<T>(properties);
+    }
+
+    /**
+     * Supply the instance for a handler, which then needs no <code>class</code>.  The same instance is used by every
+     * {@link #build(EventFactory, Executor)}.
+     *
+     * @param name of the handler.
+     * @param eventHandler to use.
+     */
+    public void setEventHandler(final String name, final EventHandler<T> eventHandler)
+    {
+        eventHandlerByName.put(name, eventHandler);
+    }
+
+    /**
+     * Supply the workers of a pool, which then needs no <code>class</code> or <code>workers</code>.  The same instances
+     * are used by every {@link #build(EventFactory, Executor)}.
+     *
+     * @param name of the pool.
+     * @param workHandlers to use, one thread each.
+     */
+    @SuppressWarnings("unchecked")
+    public void setWorkHandlers(final String name, final WorkHandler<T>... workHandlers)
+    {
+        workHandlersByName.put(name, workHandlers);
+    }
+
+    /**
+     * Get a handler by name, for example to swap it with {@link Disruptor#swapHandler(EventHandler, EventHandler)}.
+     *
+     * @param name of the handler.
+     * @return the handler in the disruptor returned by the last {@link #build(EventFactory, Executor)}, either the
+     * supplied instance or the one created from its class for that build, or null before the first build.
+     */
+    public EventHandler<T> getEventHandler(final String name)
+    {
+        return builtEventHandlerByName.get(name);
+    }
+
+    /**
+     * Build the disruptor and set up its handlers and pools, ready to be started.
+     *
+     * @param eventFactory to fill the ring buffer.
+     * @param executor to run the event processors.
+     * @return the disruptor.
+     * @throws IllegalArgumentException if the configuration is invalid.
+     */
+    public Disruptor<T> build(final EventFactory<T> eventFactory, final Executor executor)
+    {
+        final Map<String, Map<String, String>> stages = readStages();
+
+        final int ringBufferSize = parsePositive("ringBufferSize", getRequired("ringBufferSize"));
+        final Disruptor<T> disruptor = new Disruptor<T>(eventFactory, executor,
+                                                        newClaimStrategy(getOptional("claimStrategy", "single"), ringBufferSize),
+                                                        newWaitStrategy(getOptional("waitStrategy", "blocking")));
+
+        // 按类创建的handler每次构建都是新实例，避免两个Disruptor共享有状态的handler
+        final Map<String, EventHandler<T>> eventHandlers = new HashMap<String, EventHandler<T>>(eventHandlerByName);
+        final Map<String, EventProcessor[]> eventProcessorsByStage = new HashMap<String, EventProcessor[]>();
+        for (String stage : stages.keySet())
+        {
+            setUp(disruptor, stage, stages, eventHandlers, eventProcessorsByStage, new HashSet<String>());
+        }
+
+        if (Boolean.parseBoolean(getOptional("fusion", "false")))
+        {
+            disruptor.enableFusion();
+        }
+
+        builtEventHandlerByName = eventHandlers;
+        return disruptor;
+    }
+
+    private Map<String, Map<String, String>> readStages()
+    {
+        // 阶段名带上前缀，使handler与pool不会重名
+        final Map<String, Map<String, String>> stages = new LinkedHashMap<String, Map<String, String>>();
+        for (String name : eventHandlerByName.keySet())
+        {
+            addAttribute(stages, HANDLER_PREFIX + name, null, null);
+        }
+        for (String name : workHandlersByName.keySet())
+        {
+            addAttribute(stages, POOL_PREFIX + name, null, null);
+        }
+
+        for (String key : new TreeSet<String>(properties.stringPropertyNames()))
+        {
+            final int attributeIndex = key.lastIndexOf('.');
+            if (key.startsWith(HANDLER_PREFIX) || key.startsWith(POOL_PREFIX))
+            {
+                if (attributeIndex <= key.indexOf('.') + 1)
+                {
+                    throw new IllegalArgumentException("Unknown key " + key);
+                }
+                addAttribute(stages, key.substring(0, attributeIndex), key.substring(attributeIndex + 1), properties.getProperty(key).trim());
+            }
+            else if (!"ringBufferSize".equals(key) && !"claimStrategy".equals(key) &&
+                     !"waitStrategy".equals(key) && !"fusion".equals(key))
+            {
+                throw new IllegalArgumentException("Unknown key " + key);
+            }
+        }
+
+        for (Map.Entry<String, Map<String, String>> stage : stages.entrySet())
+        {
+            for (String attribute : stage.getValue().keySet())
+            {
+                if (!"class".equals(attribute) && !"after".equals(attribute) &&
+                    !(isPool(stage.getKey()) ? "workers".equals(attribute) :
+                      "waitStrategy".equals(attribute) || "maxBatchSize".equals(attribute)))
+                {
+                    throw new IllegalArgumentException("Unknown key " + stage.getKey() + "." + attribute);
+                }
+            }
+        }
+
+        return stages;
+    }
+
+    private static void addAttribute(final Map<String, Map<String, String>> stages,
+                                     final String stage, final String attribute, final String value)
+    {
+        Map<String, String> attributes = stages.get(stage);
+        if (null == attributes)
+        {
+            attributes = new HashMap<String, String>();
+            stages.put(stage, attributes);
+        }
+        if (null != attribute)
+        {
+            attributes.put(attribute, value);
+        }
+    }
+
+    private EventProcessor[] setUp(final Disruptor<T> disruptor,
+                                   final String stage,
+                                   final Map<String, Map<String, String>> stages,
+                                   final Map<String, EventHandler<T>> eventHandlers,
+                                   final Map<String, EventProcessor[]> eventProcessorsByStage,
+                                   final Set<String> settingUp)
+    {
+        final EventProcessor[] existing = eventProcessorsByStage.get(stage);
+        if (null != existing)
+        {
+            return existing;
+        }
+        if (!settingUp.add(stage))
+        {
+            throw new IllegalArgumentException("Dependency cycle through " + stage);
+        }
+
+        final Map<String, String> attributes = stages.get(stage);
+        final List<EventProcessor> dependencies = new ArrayList<EventProcessor>();
+        final String after = attributes.get("after");
+        if (null != after && 0 != after.length())
+        {
+            for (String dependency : after.split("\\s*,\\s*"))
+            {
+                final String dependencyStage = stages.containsKey(HANDLER_PREFIX + dependency) ? HANDLER_PREFIX + dependency : POOL_PREFIX + dependency;
+                if (!stages.containsKey(dependencyStage))
+                {
+                    throw new IllegalArgumentException("Unknown dependency " + dependency + " of " + stage);
+                }
+                for (EventProcessor eventProcessor : setUp(disruptor, dependencyStage, stages, eventHandlers, eventProcessorsByStage, settingUp))
+                {
+                    dependencies.add(eventProcessor);
+                }
+            }
+        }
+        final EventProcessor[] barrierEventProcessors = dependencies.toArray(new EventProcessor[dependencies.size()]);
+
+        final EventProcessor[] eventProcessors = isPool(stage) ?
+            setUpWorkerPool(disruptor, stage, attributes, barrierEventProcessors) :
+            setUpEventHandler(disruptor, stage, attributes, eventHandlers, barrierEventProcessors);
+
+        settingUp.remove(stage);
+        eventProcessorsByStage.put(stage, eventProcessors);
+        return eventProcessors;
+    }
+
+    private EventProcessor[] setUpEventHandler(final Disruptor<T> disruptor,
+                                               final String stage,
+                                               final Map<String, String> attributes,
+                                               final Map<String, EventHandler<T>> eventHandlers,
+                                               final EventProcessor[] barrierEventProcessors)
+    {
+        final String name = stage.substring(HANDLER_PREFIX.length());
+        EventHandler<T> eventHandler = eventHandlers.get(name);
+        if (null == eventHandler)
+        {
+            eventHandler = newEventHandler(getRequired(attributes, stage, "class"));
+            eventHandlers.put(name, eventHandler);
+        }
+
+        final String waitStrategy = attributes.get("waitStrategy");
+        final EventProcessor[] eventProcessors =
+            disruptor.createEventProcessors(barrierEventProcessors,
+                                            null == waitStrategy ? null : newWaitStrategy(waitStrategy),
+                                            newEventHandlerArray(eventHandler)).getEventProcessors();
+
+        final String maxBatchSize = attributes.get("maxBatchSize");
+        if (null != maxBatchSize)
+        {
+            ((BatchEventProcessor<?>)eventProcessors[0]).setMaxBatchSize(parsePositive(stage + ".maxBatchSize", maxBatchSize));
+        }
+
+        return eventProcessors;
+    }
+
+    private EventProcessor[] setUpWorkerPool(final Disruptor<T> disruptor,
+                                             final String stage,
+                                             final Map<String, String> attributes,
+                                             final EventProcessor[] barrierEventProcessors)
+    {
+        WorkHandler<T>[] workHandlers = workHandlersByName.get(stage.substring(POOL_PREFIX.length()));
+        if (null == workHandlers)
+        {
+            final String type = getRequired(attributes, stage, "class");
+            final String workers = attributes.get("workers");
+            workHandlers = newWorkHandlerArray(null == workers ? 1 : parsePositive(stage + ".workers", workers));
+            for (int i = 0; i < workHandlers.length; i++)
+            {
+                workHandlers[i] = newWorkHandler(type);
+            }
+        }
+
+        return disruptor.createWorkerPool(barrierEventProcessors, workHandlers).getEventProcessors();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> EventHandler<E> newEventHandler(final String className)
+    {
+        return newInstance(EventHandler.class, className);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> WorkHandler<E> newWorkHandler(final String className)
+    {
+        return newInstance(WorkHandler.class, className);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> EventHandler<E>[] newEventHandlerArray(final EventHandler<E> eventHandler)
+    {
+        return (EventHandler<E>[])new EventHandler<?>[] {eventHandler};
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> WorkHandler<E>[] newWorkHandlerArray(final int length)
+    {
+        return (WorkHandler<E>[])new WorkHandler<?>[length];
+    }
+
+    private static ClaimStrategy newClaimStrategy(final String name, final int bufferSize)
+    {
+        if ("single".equals(name))
+        {
+            return new SingleThreadedClaimStrategy(bufferSize);
+        }
+        if ("multi".equals(name))
+        {
+            return new MultiThreadedClaimStrategy(bufferSize);
+        }
+        if ("multi-low-contention".equals(name))
+        {
+            return new MultiThreadedLowContentionClaimStrategy(bufferSize);
+        }
+
+        try
+        {
+            return loadClass(ClaimStrategy.class, name).getConstructor(int.class).newInstance(Integer.valueOf(bufferSize));
+        }
+        catch (final IllegalArgumentException ex)
+        {
+            throw ex;
+        }
+        catch (final Exception ex)
+        {
+            throw new IllegalArgumentException("Can not create claim strategy " + name, ex);
+        }
+    }
+
+    private static WaitStrategy newWaitStrategy(final String name)
+    {
+        if ("blocking".equals(name))
+        {
+            return new BlockingWaitStrategy();
+        }
+        if ("lite-blocking".equals(name))
+        {
+            return new LiteBlockingWaitStrategy();
+        }
+        if ("sleeping".equals(name))
+        {
+            return new SleepingWaitStrategy();
+        }
+        if ("yielding".equals(name))
+        {
+            return new YieldingWaitStrategy();
+        }
+        if ("busy-spin".equals(name))
+        {
+            return new BusySpinWaitStrategy();
+        }
+        if ("targeted-wakeup".equals(name))
+        {
+            return new TargetedWakeupWaitStrategy();
+        }
+
+        return newInstance(WaitStrategy.class, name);
+    }
+
+    private static <E> E newInstance(final Class<E> type, final String className)
+    {
+        try
+        {
+            return loadClass(type, className).getConstructor().newInstance();
+        }
+        catch (final IllegalArgumentException ex)
+        {
+            throw ex;
+        }
+        catch (final Exception ex)
+        {
+            throw new IllegalArgumentException("Can not create " + type.getSimpleName() + " " + className, ex);
+        }
+    }
+
+    private static <E> Class<? extends E> loadClass(final Class<E> type, final String className)
+    {
+        try
+        {
+            return Class.forName(className).asSubclass(type);
+        }
+        catch (final ClassNotFoundException ex)
+        {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + " " + className, ex);
+        }
+        catch (final ClassCastException ex)
+        {
+            throw new IllegalArgumentException(className + " is not a " + type.getSimpleName(), ex);
+        }
+    }
+
+    private static boolean isPool(final String stage)
+    {
+        return stage.startsWith(POOL_PREFIX);
+    }
+
+    private String getOptional(final String key, final String defaultValue)
+    {
+        return properties.getProperty(key, defaultValue).trim();
+    }
+
+    private static int parsePositive(final String key, final String value)
+    {
+        try
+        {
+            final int parsed = Integer.parseInt(value);
+            if (parsed >= 1)
+            {
+                return parsed;
+            }
+        }
+        catch (final NumberFormatException ex)
+        {
+            // 与非正数一样报告
+        }
+
+        throw new IllegalArgumentException("Invalid " + key + " " + value + ", must be a positive integer");
+    }
+
+    private String getRequired(final String key)
+    {
+        final String value = properties.getProperty(key);
+        if (null == value)
+        {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+
+        return value.trim();
+    }
+
+    private static String getRequired(final Map<String, String> attributes, final String stage, final String attribute)
+    {
+        final String value = attributes.get(attribute);
+        if (null == value)
+        {
+            throw new IllegalArgumentException("Missing " + stage + "." + attribute);
+        }
+
+        return value;
+    }
+}
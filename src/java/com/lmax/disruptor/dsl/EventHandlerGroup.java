@@ -18,6 +18,8 @@ package com.lmax.disruptor.dsl;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.EventProcessor;
 import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.WorkHandler;
+import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.util.Util;
 
 /**
@@ -97,6 +99,21 @@ public class EventHandlerGroup<T>
         return handleEventsWith(handlers);
     }
 
+    /**
+     * Set up batch handlers to consume events from the ring buffer after every {@link EventProcessor} in this group,
+     * waiting with their own {@link WaitStrategy}.
+     *
+     * <pre><code>dw.handleEventsWith(A).then(new SleepingWaitStrategy(), B);</code></pre>
+     *
+     * @param waitStrategy the wait strategy used by the handlers to wait for events.
+     * @param handlers the batch handlers that will process events.
+     * @return a {@link EventHandlerGroup} that can be used to set up a event processor barrier over the created event processors.
+     */
+    public EventHandlerGroup<T> then(final WaitStrategy waitStrategy, final EventHandler<T>... handlers)
+    {
+        return handleEventsWith(waitStrategy, handlers);
+    }
+
     /**
      * Set up batch handlers to handleEventException events from the ring buffer. These handlers will only process events
      * after every {@link EventProcessor} in this group has processed the event.
@@ -114,6 +131,83 @@ public class EventHandlerGroup<T>
         return disruptor.createEventProcessors(eventProcessors, handlers);
     }
 
+    /**
+     * Set up batch handlers to handle events from the ring buffer after every {@link EventProcessor} in this group,
+     * waiting with their own {@link WaitStrategy}.
+     *
+     * <pre><code>dw.after(A).handleEventsWith(new SleepingWaitStrategy(), B);</code></pre>
+     *
+     * @param waitStrategy the wait strategy used by the handlers to wait for events.
+     * @param handlers the batch handlers that will process events.
+     * @return a {@link EventHandlerGroup} that can be used to set up a event processor barrier over the created event processors.
+     */
+    public EventHandlerGroup<T> handleEventsWith(final WaitStrategy waitStrategy, final EventHandler<T>... handlers)
+    {
+        return disruptor.createEventProcessors(eventProcessors, waitStrategy, handlers);
+    }
+
+    /**
+     * Set up custom event processors to handle events from the ring buffer after every {@link EventProcessor} in
+     * this group.  The processors must wait on a barrier from {@link #asSequenceBarrier()}.  They are recorded as
+     * depending on this group, so the ring buffer is gated on them instead and the {@link TopologyGraph} shows the
+     * dependency.
+     *
+     * <pre><code>EventHandlerGroup&lt;T&gt; group = dw.after(A);
+     * group.then(new MyEventProcessor(ringBuffer, group.asSequenceBarrier()));</code></pre>
+     *
+     * @param processors the event processors that will process events.
+     * @return a {@link EventHandlerGroup} that can be used to set up a event processor barrier over the processors.
+     */
+    public EventHandlerGroup<T> then(final EventProcessor... processors)
+    {
+        return handleEventsWith(processors);
+    }
+
+    /**
+     * Set up custom event processors to handle events from the ring buffer after every {@link EventProcessor} in
+     * this group, see {@link #then(EventProcessor...)}.
+     *
+     * @param processors the event processors that will process events.
+     * @return a {@link EventHandlerGroup} that can be used to set up a event processor barrier over the processors.
+     */
+    public EventHandlerGroup<T> handleEventsWith(final EventProcessor... processors)
+    {
+        return disruptor.addEventProcessors(eventProcessors, processors);
+    }
+
+    /**
+     * Set up a worker pool to handle events from the ring buffer after every {@link EventProcessor} in this group.
+     * Each event is processed by exactly one of the work handlers.
+     *
+     * <pre><code>dw.handleEventsWith(A).thenHandleEventsWithWorkerPool(W1, W2, W3).then(B);</code></pre>
+     *
+     * @param workHandlers the work handlers that will process events, one thread each.
+     * @return a {@link EventHandlerGroup} that can be used to set up a event processor barrier over the created work processors.
+     */
+    public EventHandlerGroup<T> thenHandleEventsWithWorkerPool(final WorkHandler<T>... workHandlers)
+    {
+        return handleEventsWithWorkerPool(workHandlers);
+    }
+
+    /**
+     * Set up a worker pool to handle events from the ring buffer after every {@link EventProcessor} in this group.
+     * Each event is processed by exactly one of the work handlers.
+     *
+     * <pre><code>dw.after(A).handleEventsWithWorkerPool(W1, W2, W3);</code></pre>
+     *
+     * @param workHandlers the work handlers that will process events, one thread each.
+     * @return a {@link EventHandlerGroup} that can be used to set up a event processor barrier over the created work processors.
+     */
+    public EventHandlerGroup<T> handleEventsWithWorkerPool(final WorkHandler<T>... workHandlers)
+    {
+        return disruptor.createWorkerPool(eventProcessors, workHandlers);
+    }
+
+    EventProcessor[] getEventProcessors()
+    {
+        return eventProcessors;
+    }
+
     /**
      * Create a dependency barrier for the processors in this group.
      * This allows custom event processors to have dependencies on
@@ -18,19 +18,36 @@ package com.lmax.disruptor.dsl;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.EventProcessor;
 import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.WorkHandler;
 
 class EventProcessorInfo<T>
 {
     private final EventProcessor eventprocessor;
-    private final EventHandler<T> handler;
+    private EventHandler<T> handler;
+    private final WorkHandler<T> workHandler;
     private final SequenceBarrier barrier;
+    private final EventProcessor[] dependencies;
     private boolean endOfChain = true;
 
-    EventProcessorInfo(final EventProcessor eventprocessor, final EventHandler<T> handler, final SequenceBarrier barrier)
+    EventProcessorInfo(final EventProcessor eventprocessor,
+                       final EventHandler<T> handler,
+                       final SequenceBarrier barrier,
+                       final EventProcessor[] dependencies)
+    {
+        this(eventprocessor, handler, null, barrier, dependencies);
+    }
+
+    EventProcessorInfo(final EventProcessor eventprocessor,
+                       final EventHandler<T> handler,
+                       final WorkHandler<T> workHandler,
+                       final SequenceBarrier barrier,
+                       final EventProcessor[] dependencies)
     {
         this.eventprocessor = eventprocessor;
         this.handler = handler;
+        this.workHandler = workHandler;
         this.barrier = barrier;
+        this.dependencies = dependencies;
     }
 
     public EventProcessor getEventProcessor()
@@ -43,11 +60,26 @@ class EventProcessorInfo<T>
         return handler;
     }
 
+    public void setHandler(final EventHandler<T> handler)
+    {
+        this.handler = handler;
+    }
+
+    public WorkHandler<T> getWorkHandler()
+    {
+        return workHandler;
+    }
+
     public SequenceBarrier getBarrier()
     {
         return barrier;
     }
 
+    public EventProcessor[] getDependencies()
+    {
+        return dependencies;
+    }
+
     public boolean isEndOfChain()
     {
         return endOfChain;
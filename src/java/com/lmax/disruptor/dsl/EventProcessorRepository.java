@@ -18,6 +18,7 @@ package com.lmax.disruptor.dsl;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.EventProcessor;
 import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.WorkHandler;
 
 import java.util.*;
 
@@ -25,26 +26,60 @@ class EventProcessorRepository<T> implements Iterable<EventProcessorInfo<T>>
 {
     private final Map<EventHandler<?>, EventProcessorInfo<T>> eventProcessorInfoByHandler = new IdentityHashMap<EventHandler<?>, EventProcessorInfo<T>>();
     private final Map<EventProcessor, EventProcessorInfo<T>> eventProcessorInfoByEventProcessor = new IdentityHashMap<EventProcessor, EventProcessorInfo<T>>();
+    // 保持登记顺序，使启动顺序与导出的拓扑图稳定
+    private final List<EventProcessorInfo<T>> eventProcessorInfos = new ArrayList<EventProcessorInfo<T>>();
 
     public void add(final EventProcessor eventprocessor,
                     final EventHandler<T> handler,
-                    final SequenceBarrier barrier)
+                    final SequenceBarrier barrier,
+                    final EventProcessor[] dependencies)
     {
-        final EventProcessorInfo<T> eventProcessorInfo = new EventProcessorInfo<T>(eventprocessor, handler, barrier);
+        final EventProcessorInfo<T> eventProcessorInfo = new EventProcessorInfo<T>(eventprocessor, handler, barrier, dependencies);
         eventProcessorInfoByHandler.put(handler, eventProcessorInfo);
-        eventProcessorInfoByEventProcessor.put(eventprocessor, eventProcessorInfo);
+        put(eventProcessorInfo);
+    }
+
+    public void add(final EventProcessor processor,
+                    final WorkHandler<T> workHandler,
+                    final SequenceBarrier barrier,
+                    final EventProcessor[] dependencies)
+    {
+        put(new EventProcessorInfo<T>(processor, null, workHandler, barrier, dependencies));
+    }
+
+    public void add(final EventProcessor processor,
+                    final SequenceBarrier barrier,
+                    final EventProcessor[] dependencies)
+    {
+        final EventProcessorInfo<T> eventProcessorInfo = new EventProcessorInfo<T>(processor, null, barrier, dependencies);
+        put(eventProcessorInfo);
     }
 
     public void add(final EventProcessor processor)
     {
-        final EventProcessorInfo<T> eventProcessorInfo = new EventProcessorInfo<T>(processor, null, null);
-        eventProcessorInfoByEventProcessor.put(processor, eventProcessorInfo);
+        // 已登记的处理器（如after()传入）保留原有的依赖关系
+        if (!eventProcessorInfoByEventProcessor.containsKey(processor))
+        {
+            put(new EventProcessorInfo<T>(processor, null, null, new EventProcessor[0]));
+        }
+    }
+
+    public void replaceHandler(final EventHandler<T> handler, final EventHandler<T> replacementHandler)
+    {
+        if (eventProcessorInfoByHandler.containsKey(replacementHandler))
+        {
+            throw new IllegalArgumentException("The event handler " + replacementHandler + " is already processing events.");
+        }
+
+        final EventProcessorInfo<T> eventProcessorInfo = eventProcessorInfoByHandler.remove(handler);
+        eventProcessorInfo.setHandler(replacementHandler);
+        eventProcessorInfoByHandler.put(replacementHandler, eventProcessorInfo);
     }
 
     public EventProcessor[] getLastEventProcessorsInChain()
     {
         List<EventProcessor> lastEventProcessors = new ArrayList<EventProcessor>();
-        for (EventProcessorInfo<T> eventProcessorInfo : eventProcessorInfoByEventProcessor.values())
+        for (EventProcessorInfo<T> eventProcessorInfo : eventProcessorInfos)
         {
             if (eventProcessorInfo.isEndOfChain())
             {
@@ -76,7 +111,7 @@ class EventProcessorRepository<T> implements Iterable<EventProcessorInfo<T>>
 
     public Iterator<EventProcessorInfo<T>> iterator()
     {
-        return eventProcessorInfoByEventProcessor.values().iterator();
+        return eventProcessorInfos.iterator();
     }
 
     public SequenceBarrier getBarrierFor(final EventHandler<T> handler)
@@ -85,6 +120,24 @@ class EventProcessorRepository<T> implements Iterable<EventProcessorInfo<T>>
         return eventProcessorInfo != null ? eventProcessorInfo.getBarrier() : null;
     }
 
+    private void put(final EventProcessorInfo<T> eventProcessorInfo)
+    {
+        final EventProcessorInfo<T> previous =
+            eventProcessorInfoByEventProcessor.put(eventProcessorInfo.getEventProcessor(), eventProcessorInfo);
+        if (null == previous)
+        {
+            eventProcessorInfos.add(eventProcessorInfo);
+            return;
+        }
+
+        // 重新登记时保留位置以及是否已被下游依赖
+        if (!previous.isEndOfChain())
+        {
+            eventProcessorInfo.markAsUsedInBarrier();
+        }
+        eventProcessorInfos.set(eventProcessorInfos.indexOf(previous), eventProcessorInfo);
+    }
+
     private EventProcessorInfo<T> getEventProcessorInfo(final EventHandler<T> handler)
     {
         return eventProcessorInfoByHandler.get(handler);
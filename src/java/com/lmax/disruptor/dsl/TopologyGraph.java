@@ -0,0 +1,525 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.EventProcessor;
+import com.lmax.disruptor.SequenceBarrier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The dependency graph of the event processors set up through a {@link Disruptor}: an edge leads from each processor
+ * to the processors waiting on it, the processors without dependencies wait on the cursor of the ring buffer, and the
+ * gating processors are those the ring buffer waits on before overwriting a slot.
+ *
+ * The graph reports the processors that can never see an event because they depend on an unknown processor or a
+ * cycle, those on a cycle, and those the ring buffer does not wait on, directly or through a processor depending on
+ * them, so that publishers can overwrite events they have yet to read.  It also finds the critical path, the longest
+ * chain of dependencies, which bounds the latency of an event through the disruptor.
+ *
+ * The graph only knows the dependencies recorded by the {@link Disruptor}.  Handlers, worker pools and processors set
+ * up with {@link EventHandlerGroup#then(EventProcessor...)} are recorded with their dependencies, and a graph made of
+ * those alone is always valid.  A custom processor added with
+ * {@link Disruptor#handleEventsWith(EventProcessor...)} is recorded as waiting on the cursor whatever its barrier,
+ * and a processor built on {@link EventHandlerGroup#asSequenceBarrier()} but never added is not in the graph at all,
+ * so neither can be checked.
+ *
+ * Processors are labelled with the class of their {@link com.lmax.disruptor.EventHandler}, or of the
+ * {@link com.lmax.disruptor.WorkHandler} for the workers of a pool, and numbered in the order they were set up, so
+ * exports of the same set up can be compared.  It can be
+ * exported with {@link #toDot()} for Graphviz or {@link #toJson()}.
+ */
+public final class TopologyGraph
+{
+    private final Map<EventProcessor, EventProcessorInfo<?>> eventProcessorInfoByEventProcessor =
+        new IdentityHashMap<EventProcessor, EventProcessorInfo<?>>();
+    private final Map<EventProcessor, Integer> idByEventProcessor = new IdentityHashMap<EventProcessor, Integer>();
+    private final Map<SequenceBarrier, Integer> idByBarrier = new IdentityHashMap<SequenceBarrier, Integer>();
+    private final List<EventProcessor> eventProcessors = new ArrayList<EventProcessor>();
+    private final Set<EventProcessor> gatingProcessors = newIdentitySet();
+    private final List<EventProcessor> unreachable = new ArrayList<EventProcessor>();
+    private final List<EventProcessor> cyclic = new ArrayList<EventProcessor>();
+    private final List<EventProcessor> ungated = new ArrayList<EventProcessor>();
+    private final List<EventProcessor> criticalPath = new LinkedList<EventProcessor>();
+
+    TopologyGraph(final Iterable<? extends EventProcessorInfo<?>> eventProcessorInfos, final EventProcessor[] gatingProcessors)
+    {
+        final List<EventProcessor> registered = new ArrayList<EventProcessor>();
+        for (EventProcessorInfo<?> eventProcessorInfo : eventProcessorInfos)
+        {
+            registered.add(eventProcessorInfo.getEventProcessor());
+            eventProcessorInfoByEventProcessor.put(eventProcessorInfo.getEventProcessor(), eventProcessorInfo);
+        }
+        Collections.addAll(this.gatingProcessors, gatingProcessors);
+
+        sortTopologically(registered);
+        findUngated();
+        findCriticalPath();
+
+        for (EventProcessor eventProcessor : eventProcessors)
+        {
+            idByEventProcessor.put(eventProcessor, Integer.valueOf(idByEventProcessor.size()));
+            final SequenceBarrier barrier = eventProcessorInfoByEventProcessor.get(eventProcessor).getBarrier();
+            if (null != barrier && !idByBarrier.containsKey(barrier))
+            {
+                idByBarrier.put(barrier, Integer.valueOf(idByBarrier.size()));
+            }
+        }
+    }
+
+    /**
+     * @return the processors, dependencies before their dependents, followed by those that can not be ordered.
+     */
+    public List<EventProcessor> getEventProcessors()
+    {
+        return Collections.unmodifiableList(eventProcessors);
+    }
+
+    /**
+     * @param eventProcessor in the graph.
+     * @return the processors it waits on.
+     */
+    public EventProcessor[] getDependencies(final EventProcessor eventProcessor)
+    {
+        return eventProcessorInfoByEventProcessor.get(eventProcessor).getDependencies().clone();
+    }
+
+    /**
+     * @param eventProcessor in the graph.
+     * @return true if the ring buffer waits on the processor before overwriting a slot.
+     */
+    public boolean isGating(final EventProcessor eventProcessor)
+    {
+        return gatingProcessors.contains(eventProcessor);
+    }
+
+    /**
+     * @return the processors that depend on an unknown processor or a cycle, and so never see an event.
+     */
+    public List<EventProcessor> getUnreachable()
+    {
+        return Collections.unmodifiableList(unreachable);
+    }
+
+    /**
+     * @return the processors on a dependency cycle.
+     */
+    public List<EventProcessor> getCyclic()
+    {
+        return Collections.unmodifiableList(cyclic);
+    }
+
+    /**
+     * @return the processors the ring buffer does not wait on, whose events can be overwritten before being read.
+     */
+    public List<EventProcessor> getUngated()
+    {
+        return Collections.unmodifiableList(ungated);
+    }
+
+    /**
+     * @return the longest chain of dependencies, from a processor waiting on the cursor to the last one.
+     */
+    public List<EventProcessor> getCriticalPath()
+    {
+        return Collections.unmodifiableList(criticalPath);
+    }
+
+    /**
+     * @return true if no processor is unreachable, cyclic or ungated.
+     */
+    public boolean isValid()
+    {
+        return unreachable.isEmpty() && cyclic.isEmpty() && ungated.isEmpty();
+    }
+
+    /**
+     * Check the graph is valid.
+     *
+     * @throws IllegalStateException listing the unreachable, cyclic and ungated processors if there are any.
+     */
+    public void validate()
+    {
+        if (!isValid())
+        {
+            throw new IllegalStateException("Invalid topology: unreachable " + namesOf(unreachable) +
+                                            ", cyclic " + namesOf(cyclic) + ", ungated " + namesOf(ungated));
+        }
+    }
+
+    /**
+     * Export the graph in the Graphviz DOT language.  Gating processors have a double border, problem processors are
+     * dashed red and the edges of the critical path are bold.
+     *
+     * @return the DOT text.
+     */
+    public String toDot()
+    {
+        final StringBuilder dot = new StringBuilder();
+        dot.append("digraph disruptor {\n");
+        dot.append("  rankdir=LR;\n");
+        dot.append("  cursor [shape=box, label=\"RingBuffer\"];\n");
+
+        for (EventProcessor eventProcessor : eventProcessors)
+        {
+            final Integer barrierId = getBarrierId(eventProcessor);
+            dot.append("  n").append(idOf(eventProcessor)).append(" [label=\"").append(escape(nameOf(eventProcessor)))
+               .append("\\n").append(escape(eventProcessor.getClass().getSimpleName()));
+            if (null != barrierId)
+            {
+                dot.append("\\nbarrier ").append(barrierId);
+            }
+            dot.append('"');
+            if (isGating(eventProcessor))
+            {
+                dot.append(", peripheries=2");
+            }
+            if (unreachable.contains(eventProcessor) || cyclic.contains(eventProcessor) || ungated.contains(eventProcessor))
+            {
+                dot.append(", style=dashed, color=red");
+            }
+            dot.append("];\n");
+        }
+
+        for (EventProcessor eventProcessor : eventProcessors)
+        {
+            final EventProcessor[] dependencies = eventProcessorInfoByEventProcessor.get(eventProcessor).getDependencies();
+            if (0 == dependencies.length)
+            {
+                appendEdge(dot, "cursor", eventProcessor, criticalPath.indexOf(eventProcessor) == 0);
+            }
+            for (EventProcessor dependency : dependencies)
+            {
+                if (idByEventProcessor.containsKey(dependency))
+                {
+                    appendEdge(dot, "n" + idOf(dependency), eventProcessor, isCriticalEdge(dependency, eventProcessor));
+                }
+            }
+        }
+
+        dot.append("}\n");
+        return dot.toString();
+    }
+
+    /**
+     * Export the graph as JSON: a <code>nodes</code> array, with the ids of the dependencies of each node, and arrays
+     * of node ids for the <code>criticalPath</code> and the <code>unreachable</code>, <code>cyclic</code> and
+     * <code>ungated</code> nodes.
+     *
+     * @return the JSON text.
+     */
+    public String toJson()
+    {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\"nodes\":[");
+        for (int i = 0, size = eventProcessors.size(); i < size; i++)
+        {
+            final EventProcessor eventProcessor = eventProcessors.get(i);
+            if (i > 0)
+            {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i)
+                .append(",\"name\":\"").append(escape(nameOf(eventProcessor)))
+                .append("\",\"type\":\"").append(escape(eventProcessor.getClass().getSimpleName()))
+                .append("\",\"barrier\":").append(getBarrierId(eventProcessor))
+                .append(",\"gating\":").append(isGating(eventProcessor))
+                .append(",\"dependencies\":");
+            final List<EventProcessor> dependencies = new ArrayList<EventProcessor>();
+            for (EventProcessor dependency : eventProcessorInfoByEventProcessor.get(eventProcessor).getDependencies())
+            {
+                if (idByEventProcessor.containsKey(dependency))
+                {
+                    dependencies.add(dependency);
+                }
+            }
+            appendIds(json, dependencies);
+            json.append('}');
+        }
+        json.append("],\"criticalPath\":");
+        appendIds(json, criticalPath);
+        json.append(",\"unreachable\":");
+        appendIds(json, unreachable);
+        json.append(",\"cyclic\":");
+        appendIds(json, cyclic);
+        json.append(",\"ungated\":");
+        appendIds(json, ungated);
+        json.append('}');
+
+        return json.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toDot();
+    }
+
+    private void sortTopologically(final List<EventProcessor> registered)
+    {
+        final Map<EventProcessor, List<EventProcessor>> dependentsByEventProcessor =
+            new IdentityHashMap<EventProcessor, List<EventProcessor>>();
+        final Map<EventProcessor, Integer> pendingDependencies = new IdentityHashMap<EventProcessor, Integer>();
+        final LinkedList<EventProcessor> ready = new LinkedList<EventProcessor>();
+
+        for (EventProcessor eventProcessor : registered)
+        {
+            final EventProcessor[] dependencies = eventProcessorInfoByEventProcessor.get(eventProcessor).getDependencies();
+            pendingDependencies.put(eventProcessor, Integer.valueOf(dependencies.length));
+            if (0 == dependencies.length)
+            {
+                ready.add(eventProcessor);
+            }
+            for (EventProcessor dependency : dependencies)
+            {
+                List<EventProcessor> dependents = dependentsByEventProcessor.get(dependency);
+                if (null == dependents)
+                {
+                    dependents = new ArrayList<EventProcessor>();
+                    dependentsByEventProcessor.put(dependency, dependents);
+                }
+                dependents.add(eventProcessor);
+            }
+        }
+
+        // Kahn算法，依赖未知处理器或环的节点永远不会就绪
+        while (!ready.isEmpty())
+        {
+            final EventProcessor eventProcessor = ready.removeFirst();
+            eventProcessors.add(eventProcessor);
+            final List<EventProcessor> dependents = dependentsByEventProcessor.get(eventProcessor);
+            if (null != dependents)
+            {
+                for (EventProcessor dependent : dependents)
+                {
+                    final int pending = pendingDependencies.get(dependent).intValue() - 1;
+                    pendingDependencies.put(dependent, Integer.valueOf(pending));
+                    if (0 == pending)
+                    {
+                        ready.add(dependent);
+                    }
+                }
+            }
+        }
+
+        final Set<EventProcessor> sorted = newIdentitySet();
+        sorted.addAll(eventProcessors);
+        for (EventProcessor eventProcessor : registered)
+        {
+            if (!sorted.contains(eventProcessor))
+            {
+                eventProcessors.add(eventProcessor);
+                if (isOnCycle(eventProcessor, dependentsByEventProcessor))
+                {
+                    cyclic.add(eventProcessor);
+                }
+                else
+                {
+                    unreachable.add(eventProcessor);
+                }
+            }
+        }
+    }
+
+    private static boolean isOnCycle(final EventProcessor eventProcessor,
+                                     final Map<EventProcessor, List<EventProcessor>> dependentsByEventProcessor)
+    {
+        final Set<EventProcessor> visited = newIdentitySet();
+        final LinkedList<EventProcessor> pending = new LinkedList<EventProcessor>();
+        pending.add(eventProcessor);
+        while (!pending.isEmpty())
+        {
+            final List<EventProcessor> dependents = dependentsByEventProcessor.get(pending.removeFirst());
+            if (null != dependents)
+            {
+                for (EventProcessor dependent : dependents)
+                {
+                    if (dependent == eventProcessor)
+                    {
+                        return true;
+                    }
+                    if (visited.add(dependent))
+                    {
+                        pending.add(dependent);
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private void findUngated()
+    {
+        final Set<EventProcessor> gated = newIdentitySet();
+        final LinkedList<EventProcessor> pending = new LinkedList<EventProcessor>();
+        for (EventProcessor gatingProcessor : gatingProcessors)
+        {
+            if (eventProcessorInfoByEventProcessor.containsKey(gatingProcessor) && gated.add(gatingProcessor))
+            {
+                pending.add(gatingProcessor);
+            }
+        }
+
+        // 被门控处理器依赖的上游处理器同样受到门控
+        while (!pending.isEmpty())
+        {
+            for (EventProcessor dependency : eventProcessorInfoByEventProcessor.get(pending.removeFirst()).getDependencies())
+            {
+                if (eventProcessorInfoByEventProcessor.containsKey(dependency) && gated.add(dependency))
+                {
+                    pending.add(dependency);
+                }
+            }
+        }
+
+        for (EventProcessor eventProcessor : eventProcessors)
+        {
+            if (!gated.contains(eventProcessor))
+            {
+                ungated.add(eventProcessor);
+            }
+        }
+    }
+
+    private void findCriticalPath()
+    {
+        final Map<EventProcessor, Integer> depthByEventProcessor = new IdentityHashMap<EventProcessor, Integer>();
+        final Map<EventProcessor, EventProcessor> previousByEventProcessor = new IdentityHashMap<EventProcessor, EventProcessor>();
+        EventProcessor last = null;
+        int maxDepth = 0;
+
+        // 按拓扑序计算最长依赖链，不可排序的节点不参与
+        for (EventProcessor eventProcessor : eventProcessors)
+        {
+            if (unreachable.contains(eventProcessor) || cyclic.contains(eventProcessor))
+            {
+                continue;
+            }
+
+            int depth = 1;
+            for (EventProcessor dependency : eventProcessorInfoByEventProcessor.get(eventProcessor).getDependencies())
+            {
+                final int dependencyDepth = depthByEventProcessor.get(dependency).intValue() + 1;
+                if (dependencyDepth > depth)
+                {
+                    depth = dependencyDepth;
+                    previousByEventProcessor.put(eventProcessor, dependency);
+                }
+            }
+            depthByEventProcessor.put(eventProcessor, Integer.valueOf(depth));
+
+            if (depth > maxDepth)
+            {
+                maxDepth = depth;
+                last = eventProcessor;
+            }
+        }
+
+        for (EventProcessor eventProcessor = last; null != eventProcessor; eventProcessor = previousByEventProcessor.get(eventProcessor))
+        {
+            criticalPath.add(0, eventProcessor);
+        }
+    }
+
+    private boolean isCriticalEdge(final EventProcessor dependency, final EventProcessor dependent)
+    {
+        final int index = criticalPath.indexOf(dependent);
+        return index > 0 && criticalPath.get(index - 1) == dependency;
+    }
+
+    private void appendEdge(final StringBuilder dot, final String from, final EventProcessor to, final boolean critical)
+    {
+        dot.append("  ").append(from).append(" -> n").append(idOf(to));
+        if (critical)
+        {
+            dot.append(" [style=bold, color=blue]");
+        }
+        dot.append(";\n");
+    }
+
+    private void appendIds(final StringBuilder json, final List<EventProcessor> processors)
+    {
+        json.append('[');
+        for (int i = 0, size = processors.size(); i < size; i++)
+        {
+            if (i > 0)
+            {
+                json.append(',');
+            }
+            json.append(idOf(processors.get(i)));
+        }
+        json.append(']');
+    }
+
+    private int idOf(final EventProcessor eventProcessor)
+    {
+        return idByEventProcessor.get(eventProcessor).intValue();
+    }
+
+    private Integer getBarrierId(final EventProcessor eventProcessor)
+    {
+        final SequenceBarrier barrier = eventProcessorInfoByEventProcessor.get(eventProcessor).getBarrier();
+        return null == barrier ? null : idByBarrier.get(barrier);
+    }
+
+    private String nameOf(final EventProcessor eventProcessor)
+    {
+        final EventProcessorInfo<?> eventProcessorInfo = eventProcessorInfoByEventProcessor.get(eventProcessor);
+        final Class<?> type;
+        if (null != eventProcessorInfo.getHandler())
+        {
+            type = eventProcessorInfo.getHandler().getClass();
+        }
+        else if (null != eventProcessorInfo.getWorkHandler())
+        {
+            type = eventProcessorInfo.getWorkHandler().getClass();
+        }
+        else
+        {
+            type = eventProcessor.getClass();
+        }
+        return 0 == type.getSimpleName().length() ? type.getName() : type.getSimpleName();
+    }
+
+    private List<String> namesOf(final List<EventProcessor> processors)
+    {
+        final List<String> names = new ArrayList<String>();
+        for (EventProcessor eventProcessor : processors)
+        {
+            names.add(nameOf(eventProcessor));
+        }
+
+        return names;
+    }
+
+    private static String escape(final String text)
+    {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static Set<EventProcessor> newIdentitySet()
+    {
+        return Collections.newSetFromMap(new IdentityHashMap<EventProcessor, Boolean>());
+    }
+}
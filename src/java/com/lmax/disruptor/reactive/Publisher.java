@@ -0,0 +1,35 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.reactive;
+
+/**
+ * Provider of a potentially unbounded number of sequenced items, publishing them according to the demand
+ * received from its {@link Subscriber}s.
+ *
+ * Mirrors the Reactive Streams <code>Publisher</code> contract so it can be trivially adapted to
+ * <code>java.util.concurrent.Flow.Publisher</code> or <code>org.reactivestreams.Publisher</code>.
+ *
+ * @param <T> the type of element signalled.
+ */
+public interface Publisher<T>
+{
+    /**
+     * Request the {@link Publisher} to start streaming data to the given {@link Subscriber}.
+     *
+     * @param subscriber that will consume signals from this {@link Publisher}.
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.reactive;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.SequenceGroup;
+
+/**
+ * {@link Publisher} exposing the events of a {@link RingBuffer} to {@link Subscriber}s with real back-pressure.
+ *
+ * Each {@link Subscription} is backed by its own gating {@link Sequence} and runs as a task on the supplied
+ * {@link Executor}.  Outstanding demand is turned into batch reads: a subscription waits once on its
+ * {@link SequenceBarrier} and then delivers every available event up to the requested amount before
+ * advancing its sequence.  A subscriber that stops requesting will eventually hold back publishers
+ * just like a slow {@link com.lmax.disruptor.EventProcessor}.
+ *
+ * The {@link #getGatingSequence()} must be included in the gating sequences of the {@link RingBuffer}
+ * before publishing starts.  While there are no subscribers it simply follows the cursor.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ */
+public final class RingBufferPublisher<T> implements Publisher<T>
+{
+    private final RingBuffer<T> ringBuffer;
+    private final Executor executor;
+    private final SequenceGroup subscriberSequences = new SequenceGroup();
+    private final Sequence gatingSequence = new SubscriberGatingSequence();
+
+    /**
+     * Construct a {@link Publisher} over the events of a {@link RingBuffer}.
+     *
+     * @param ringBuffer of events to be published to subscribers.
+     * @param executor providing a thread for each active {@link Subscription}.
+     */
+    public RingBufferPublisher(final RingBuffer<T> ringBuffer, final Executor executor)
+    {
+        this.ringBuffer = ringBuffer;
+        this.executor = executor;
+    }
+
+    /**
+     * Get the {@link Sequence} representing the progress of the slowest subscriber, to be used to gate publishers
+     * via {@link RingBuffer#setGatingSequences(Sequence...)}.
+     *
+     * @return the {@link Sequence} that gates publishers on subscribers.
+     */
+    public Sequence getGatingSequence()
+    {
+        return gatingSequence;
+    }
+
+    /**
+     * Number of currently active subscriptions.
+     *
+     * @return the number of active subscriptions.
+     */
+    public int getSubscriberCount()
+    {
+        return subscriberSequences.size();
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber)
+    {
+        if (null == subscriber)
+        {
+            throw new NullPointerException();
+        }
+
+        final RingBufferSubscription subscription = new RingBufferSubscription(subscriber);
+        subscription.addToGatingSequences();
+        subscriber.onSubscribe(subscription);
+        executor.execute(subscription);
+    }
+
+    private final class SubscriberGatingSequence extends Sequence
+    {
+        @Override
+        public long get()
+        {
+            return 0 != subscriberSequences.size() ? subscriberSequences.get() : ringBuffer.getCursor();
+        }
+    }
+
+    private final class RingBufferSubscription implements Subscription, Runnable
+    {
+        private final Subscriber<? super T> subscriber;
+        private final Sequence sequence = new Sequence();
+        private final SequenceBarrier sequenceBarrier = ringBuffer.newBarrier();
+        private final AtomicLong demand = new AtomicLong(0L);
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private volatile Thread waitingThread;
+
+        private RingBufferSubscription(final Subscriber<? super T> subscriber)
+        {
+            this.subscriber = subscriber;
+        }
+
+        private void addToGatingSequences()
+        {
+            // Re-read the cursor after joining the group so a publisher wrapping in between cannot be missed.
+            sequence.set(ringBuffer.getCursor());
+            subscriberSequences.add(sequence);
+            sequence.set(ringBuffer.getCursor());
+        }
+
+        @Override
+        public void request(final long n)
+        {
+            if (n <= 0L)
+            {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Requested demand must be greater than 0 but was " + n));
+                return;
+            }
+
+            long current;
+            long updated;
+            do
+            {
+                current = demand.get();
+                updated = current + n;
+                if (updated < 0L)
+                {
+                    updated = Long.MAX_VALUE;
+                }
+            }
+            while (!demand.compareAndSet(current, updated));
+
+            LockSupport.unpark(waitingThread);
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (cancelled.compareAndSet(false, true))
+            {
+                subscriberSequences.remove(sequence);
+                sequenceBarrier.alert();
+                LockSupport.unpark(waitingThread);
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            waitingThread = Thread.currentThread();
+            long nextSequence = sequence.get() + 1L;
+            try
+            {
+                while (!cancelled.get())
+                {
+                    final long requested = demand.get();
+                    if (0L == requested)
+                    {
+                        LockSupport.park(this);
+                        continue;
+                    }
+
+                    final long availableSequence = sequenceBarrier.waitFor(nextSequence);
+                    final long endOfBatch = requested == Long.MAX_VALUE ?
+                        availableSequence : Math.min(availableSequence, nextSequence + requested - 1L);
+
+                    final long delivered = endOfBatch - nextSequence + 1L;
+                    while (nextSequence <= endOfBatch)
+                    {
+                        subscriber.onNext(ringBuffer.get(nextSequence));
+                        nextSequence++;
+                    }
+
+                    sequence.set(endOfBatch);
+                    if (requested != Long.MAX_VALUE)
+                    {
+                        demand.addAndGet(-delivered);
+                    }
+                }
+            }
+            catch (final AlertException ex)
+            {
+                // cancelled while waiting for events
+            }
+            catch (final Throwable ex)
+            {
+                cancel();
+                subscriber.onError(ex);
+            }
+            finally
+            {
+                waitingThread = null;
+            }
+        }
+    }
+}
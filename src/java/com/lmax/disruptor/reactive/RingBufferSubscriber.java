@@ -0,0 +1,140 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.reactive;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.RingBuffer;
+
+/**
+ * {@link Subscriber} that publishes every item it receives into a {@link RingBuffer}.
+ *
+ * Demand is sized to the {@link RingBuffer#remainingCapacity()} so an upstream {@link Publisher} can never
+ * push more items than there are free slots, and it is replenished in batches once half of the outstanding
+ * demand has been used rather than one item at a time.  When other publishers share the {@link RingBuffer}
+ * a claim may still wait for capacity, which back-pressures the upstream {@link Publisher} in turn.
+ *
+ * Instances are not thread safe, as required by the Reactive Streams contract which serialises signals.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ * @param <I> type of the items received from the upstream {@link Publisher}.
+ */
+public final class RingBufferSubscriber<T, I> implements Subscriber<I>
+{
+    private final static Logger LOGGER = Logger.getLogger(RingBufferSubscriber.class.getName());
+
+    private final RingBuffer<T> ringBuffer;
+    private final EventTranslatorOneArg<T, I> translator;
+    private Subscription subscription;
+    private long outstanding;
+    private volatile boolean done = false;
+
+    /**
+     * Construct a {@link Subscriber} publishing into a {@link RingBuffer}.
+     *
+     * @param ringBuffer into which received items are published.  Its gating sequences must already be set.
+     * @param translator to copy each received item into the claimed event.
+     */
+    public RingBufferSubscriber(final RingBuffer<T> ringBuffer, final EventTranslatorOneArg<T, I> translator)
+    {
+        this.ringBuffer = ringBuffer;
+        this.translator = translator;
+    }
+
+    /**
+     * Has the upstream {@link Publisher} signalled a terminal state.
+     *
+     * @return true if completed or failed otherwise false.
+     */
+    public boolean isDone()
+    {
+        return done;
+    }
+
+    @Override
+    public void onSubscribe(final Subscription subscription)
+    {
+        if (null != this.subscription)
+        {
+            subscription.cancel();
+            return;
+        }
+
+        this.subscription = subscription;
+        replenish();
+    }
+
+    @Override
+    public void onNext(final I item)
+    {
+        final long sequence = ringBuffer.next();
+        try
+        {
+            translator.translateTo(ringBuffer.get(sequence), sequence, item);
+        }
+        finally
+        {
+            ringBuffer.publish(sequence);
+        }
+
+        if (--outstanding <= ringBuffer.getBufferSize() / 2)
+        {
+            replenish();
+        }
+    }
+
+    @Override
+    public void onError(final Throwable cause)
+    {
+        done = true;
+        LOGGER.log(Level.SEVERE, "Upstream publisher failed", cause);
+    }
+
+    @Override
+    public void onComplete()
+    {
+        done = true;
+    }
+
+    /**
+     * Cancel the upstream {@link Subscription} so no further items will be published.
+     */
+    public void cancel()
+    {
+        if (null != subscription)
+        {
+            subscription.cancel();
+        }
+    }
+
+    private void replenish()
+    {
+        final long demand = ringBuffer.remainingCapacity() - outstanding;
+        if (demand > 0L)
+        {
+            outstanding += demand;
+            subscription.request(demand);
+        }
+        else if (0L == outstanding)
+        {
+            // Other publishers hold the capacity, keep one item in flight so the claim applies back-pressure.
+            outstanding = 1L;
+            subscription.request(1L);
+        }
+    }
+}
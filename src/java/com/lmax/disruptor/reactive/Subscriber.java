@@ -0,0 +1,54 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.reactive;
+
+/**
+ * Receiver of items from a {@link Publisher}, which will only be signalled after demand has been
+ * requested via {@link Subscription#request(long)}.
+ *
+ * Mirrors the Reactive Streams <code>Subscriber</code> contract.
+ *
+ * @param <T> the type of element signalled.
+ */
+public interface Subscriber<T>
+{
+    /**
+     * Invoked after calling {@link Publisher#subscribe(Subscriber)}.  No data will flow until
+     * {@link Subscription#request(long)} is invoked.
+     *
+     * @param subscription allowing the requesting of data.
+     */
+    void onSubscribe(Subscription subscription);
+
+    /**
+     * Data notification sent by the {@link Publisher} in response to requests to {@link Subscription#request(long)}.
+     *
+     * @param item the element signalled.
+     */
+    void onNext(T item);
+
+    /**
+     * Failed terminal state.  No further events will be sent even if {@link Subscription#request(long)} is invoked again.
+     *
+     * @param cause the throwable signalled.
+     */
+    void onError(Throwable cause);
+
+    /**
+     * Successful terminal state.  No further events will be sent even if {@link Subscription#request(long)} is invoked again.
+     */
+    void onComplete();
+}
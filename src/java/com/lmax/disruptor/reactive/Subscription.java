@@ -0,0 +1,37 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.reactive;
+
+/**
+ * One-to-one lifecycle of a {@link Subscriber} subscribing to a {@link Publisher}.
+ *
+ * Mirrors the Reactive Streams <code>Subscription</code> contract.
+ */
+public interface Subscription
+{
+    /**
+     * No items will be sent by a {@link Publisher} until demand is signalled via this method.
+     * Demand is cumulative and a value of {@link Long#MAX_VALUE} is treated as unbounded.
+     *
+     * @param n the strictly positive number of elements to request.
+     */
+    void request(long n);
+
+    /**
+     * Request the {@link Publisher} to stop sending data and clean up resources.
+     */
+    void cancel();
+}
@@ -16,6 +16,8 @@
 package com.lmax.disruptor.util;
 
 import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import sun.misc.Unsafe;
 
@@ -27,6 +29,13 @@ import com.lmax.disruptor.Sequence;
  */
 public final class Util
 {
+    /**
+     * The first park of a wait using {@link #parkWithBackoff(long)}.
+     */
+    public static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1L);
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
     /**
      * Calculate the next power of 2, greater than or equal to x.<p>
      * From Hacker's Delight, Chapter 3, Harry S. Warren Jr.
@@ -41,6 +50,25 @@ public final class Util
         return 1 << (32 - Integer.numberOfLeadingZeros(x - 1));
     }
 
+    /**
+     * Park the current thread while polling for a condition, such as a drained ring buffer, doubling the park on
+     * each call up to 1ms so a long wait costs little CPU while a short one still returns promptly.
+     *
+     * <pre><code>long parkNanos = Util.MIN_PARK_NANOS;
+     * while (!condition())
+     * {
+     *     parkNanos = Util.parkWithBackoff(parkNanos);
+     * }</code></pre>
+     *
+     * @param parkNanos to park for.
+     * @return the park for the next call.
+     */
+    public static long parkWithBackoff(final long parkNanos)
+    {
+        LockSupport.parkNanos(parkNanos);
+        return Math.min(parkNanos << 1, MAX_PARK_NANOS);
+    }
+
     /**
      * Get the minimum sequence from an array of {@link com.lmax.disruptor.Sequence}s.
      *
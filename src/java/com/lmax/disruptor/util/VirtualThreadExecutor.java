@@ -0,0 +1,99 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Executor} that runs each task on a new virtual thread when the JVM supports them (Java 21 and later), and on
+ * a new platform thread otherwise.  On Java 19 and 20, where virtual threads are a preview feature, they are only used
+ * when the JVM runs with <code>--enable-preview</code>.
+ *
+ * An idle {@link com.lmax.disruptor.EventProcessor} on a virtual thread costs a small heap object and no carrier
+ * thread, provided its wait strategy parks with {@link java.util.concurrent.locks.LockSupport} rather than spinning,
+ * for example {@link com.lmax.disruptor.TargetedWakeupWaitStrategy}.  Spinning or yielding strategies keep a carrier
+ * thread busy and defeat the purpose.  Virtual threads are looked up reflectively so the library still runs on the
+ * older JVMs it targets.
+ */
+public final class VirtualThreadExecutor implements Executor
+{
+    private static final Method START_VIRTUAL_THREAD = findStartVirtualThread();
+
+    @Override
+    public void execute(final Runnable command)
+    {
+        if (null == START_VIRTUAL_THREAD)
+        {
+            new Thread(command).start();
+            return;
+        }
+
+        try
+        {
+            START_VIRTUAL_THREAD.invoke(null, command);
+        }
+        catch (final IllegalAccessException ex)
+        {
+            throw new IllegalStateException("Unable to start a virtual thread", ex);
+        }
+        catch (final InvocationTargetException ex)
+        {
+            throw new IllegalStateException("Unable to start a virtual thread", ex.getCause());
+        }
+    }
+
+    /**
+     * Does this JVM support virtual threads.
+     *
+     * @return true if tasks run on virtual threads, false if they fall back to platform threads.
+     */
+    public static boolean isVirtualThreadSupported()
+    {
+        return null != START_VIRTUAL_THREAD;
+    }
+
+    private static Method findStartVirtualThread()
+    {
+        try
+        {
+            final Method startVirtualThread = Thread.class.getMethod("startVirtualThread", Runnable.class);
+            // Java 19和20中该方法是预览API，未开启--enable-preview时调用会抛出UnsupportedOperationException
+            startVirtualThread.invoke(null, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                }
+            });
+
+            return startVirtualThread;
+        }
+        catch (final NoSuchMethodException ex)
+        {
+            return null;
+        }
+        catch (final IllegalAccessException ex)
+        {
+            return null;
+        }
+        catch (final InvocationTargetException ex)
+        {
+            return null;
+        }
+    }
+}
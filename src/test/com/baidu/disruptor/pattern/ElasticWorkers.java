@@ -0,0 +1,83 @@
+package com.baidu.disruptor.pattern;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.baidu.disruptor.ValueEvent;
+import com.lmax.disruptor.ElasticWorkerPool;
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.FatalExceptionHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SingleThreadedClaimStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WorkHandler;
+import com.lmax.disruptor.WorkHandlerFactory;
+
+/**
+ * 
+ * <b>Grow a pool of workers under a backlog, retire them once idle, then halt</b>
+ * 
+ * The retired workers must exit on halt, so the executor terminates.
+ *
+ */
+public class ElasticWorkers {
+
+	public static void main(String[] args) throws Exception {
+
+		ExecutorService exec = Executors.newCachedThreadPool();
+
+		RingBuffer<ValueEvent> ringBuffer = new RingBuffer<ValueEvent>(
+				new EventFactory<ValueEvent>() {
+					@Override
+					public ValueEvent newInstance() {
+						return new ValueEvent();
+					}
+				}, new SingleThreadedClaimStrategy(1024),
+				new SleepingWaitStrategy());
+
+		final AtomicLong processed = new AtomicLong();
+		ElasticWorkerPool<ValueEvent> pool = new ElasticWorkerPool<ValueEvent>(
+				ringBuffer, ringBuffer.newBarrier(), new FatalExceptionHandler(),
+				new WorkHandlerFactory<ValueEvent>() {
+					@Override
+					public WorkHandler<ValueEvent> newInstance() {
+						return new WorkHandler<ValueEvent>() {
+							@Override
+							public void onEvent(ValueEvent event) throws Exception {
+								Thread.sleep(1);
+								processed.incrementAndGet();
+							}
+						};
+					}
+				}, 1, 4, 10, 2);
+
+		ringBuffer.setGatingSequences(pool.getWorkerSequence());
+		pool.start(exec);
+
+		// 积压超过水位，扩容到最大工作者数
+		for (int i = 0; i < 500; i++) {
+			long sequence = ringBuffer.next();
+			ringBuffer.get(sequence).setValue("number:" + i);
+			ringBuffer.publish(sequence);
+		}
+		while (pool.getWorkerCount() < 4) {
+			pool.adjust();
+			Thread.sleep(1);
+		}
+		System.out.println("grown to " + pool.getWorkerCount() + " workers");
+
+		// 空闲后逐个退役
+		while (pool.getWorkerCount() > 1) {
+			pool.adjust();
+			Thread.sleep(1);
+		}
+		System.out.println("retired to " + pool.getWorkerCount() + " workers");
+
+		pool.drainAndHalt();
+		exec.shutdown();
+		System.out.println("processed " + processed.get() + ", terminated "
+				+ exec.awaitTermination(2, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,73 @@
+package com.baidu.disruptor.pattern;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.baidu.disruptor.ValueEvent;
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.IgnoreExceptionHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SingleThreadedClaimStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WorkHandler;
+import com.lmax.disruptor.WorkerPool;
+import com.lmax.disruptor.util.Util;
+
+/**
+ * <b>Work out of order in a pool, then consume in the original order</b>
+ * 
+ *            +-----+
+ *      +---->| WP1 |-----+
+ *      |     +-----+     v
+ * +----+                +-----+
+ * | P1 |                | EP1 |
+ * +----+                +-----+
+ *      |     +-----+     ^
+ *      +---->| WP2 |-----+
+ *            +-----+
+ *
+ * EP1 waits on the minimum of the WorkProcessor sequences, which is the contiguous prefix of completed events,
+ * so it always sees sequences in order even though WP1 and WP2 finish out of order.
+ */
+public class Resequence {
+
+	@SuppressWarnings("unchecked")
+	public static void main(String[] args) {
+
+		ExecutorService exec = Executors.newCachedThreadPool();
+
+		RingBuffer<ValueEvent> ringBuffer = new RingBuffer<ValueEvent>(ValueEvent.EVENT_FACTORY,
+				new SingleThreadedClaimStrategy(16), new SleepingWaitStrategy());
+
+		final WorkHandler<ValueEvent> slowHandler = new WorkHandler<ValueEvent>() {
+			public void onEvent(final ValueEvent event) throws Exception {
+				Thread.sleep((long) (Math.random() * 10));
+				event.setValue(event.getValue() + " worked by Thread.id-" + Thread.currentThread().getId());
+			}
+		};
+
+		WorkerPool<ValueEvent> pool = new WorkerPool<ValueEvent>(ringBuffer, ringBuffer.newBarrier(),
+				new IgnoreExceptionHandler(), slowHandler, slowHandler);
+
+		// 按原始顺序消费
+		BatchEventProcessor<ValueEvent> inOrder = new BatchEventProcessor<ValueEvent>(ringBuffer,
+				pool.newResequencingBarrier(), new EventHandler<ValueEvent>() {
+					public void onEvent(ValueEvent event, long sequence, boolean endOfBatch) throws Exception {
+						System.out.println("sequence-" + sequence + ":" + event.getValue());
+					}
+				});
+
+		ringBuffer.setGatingSequences(Util.getSequencesFor(inOrder));
+
+		pool.start(exec);
+		exec.execute(inOrder);
+
+		for (int i = 0; i < 50; i++) {
+			long sequence = ringBuffer.next();
+			ringBuffer.get(sequence).setValue("number:" + i);
+			ringBuffer.publish(sequence);
+		}
+	}
+
+}